@@ -0,0 +1,25 @@
+package io.flutter.plugins.camera;
+
+import android.media.Image;
+import androidx.annotation.Nullable;
+
+/**
+ * Analyzes the image stream frames natively, registered with {@link
+ * CameraPlugin#registerFrameAnalyzer(String, CameraFrameAnalyzer)} and started from dart with
+ * {@code CameraController.startImageAnalysis}.
+ *
+ * <p>Only the results are sent to dart, the frames never cross the platform channel.
+ */
+public interface CameraFrameAnalyzer {
+  /**
+   * Called on the camera background thread for each YUV_420_888 frame, frames arriving while the
+   * previous one is analyzed are dropped.
+   *
+   * @param image the frame, closed by the plugin once this returns.
+   * @param rotationDegrees clockwise rotation to apply to the frame to have it upright.
+   * @return a value supported by the standard message codec (for example a list of boxes or
+   *     codes) sent to dart, or null to send nothing for this frame.
+   */
+  @Nullable
+  Object analyze(Image image, int rotationDegrees);
+}
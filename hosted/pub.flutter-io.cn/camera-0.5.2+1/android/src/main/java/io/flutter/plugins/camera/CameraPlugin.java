@@ -17,17 +17,25 @@ import android.hardware.camera2.CameraManager;
 import android.hardware.camera2.CameraMetadata;
 import android.hardware.camera2.CaptureFailure;
 import android.hardware.camera2.CaptureRequest;
+import android.hardware.camera2.TotalCaptureResult;
 import android.hardware.camera2.params.StreamConfigurationMap;
+import android.media.CamcorderProfile;
 import android.media.Image;
 import android.media.ImageReader;
+import android.media.MediaCodec;
 import android.media.MediaRecorder;
 import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Size;
 import android.view.Display;
 import android.view.OrientationEventListener;
 import android.view.Surface;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import io.flutter.plugin.common.BinaryMessenger;
 import io.flutter.plugin.common.EventChannel;
 import io.flutter.plugin.common.MethodCall;
 import io.flutter.plugin.common.MethodChannel;
@@ -47,20 +55,47 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class CameraPlugin implements MethodCallHandler {
 
   private static final int CAMERA_REQUEST_ID = 513469796;
   private static final String TAG = "CameraPlugin";
+  // Binary channel used to send the image stream frames in zero copy mode.
+  private static final String IMAGE_STREAM_FRAMES_CHANNEL =
+      "plugins.flutter.io/camera/imageStreamFrames";
+  // Frames being sent to dart at the same time in zero copy mode, others are dropped.
+  private static final int IMAGE_STREAM_BUFFER_COUNT = 3;
+  // Pictures acquired at the same time, being written.
+  private static final int PICTURE_MAX_IMAGES = 4;
+  private static final int PICTURE_WRITER_THREAD_COUNT = 2;
+  // Wait for the pending writes when closing the camera.
+  private static final int PICTURE_WRITE_TIMEOUT_SECONDS = 10;
+  // Binary channel dart sends to once a frame is handled when dropping frames while busy.
+  private static final String IMAGE_STREAM_ACK_CHANNEL = "plugins.flutter.io/camera/imageStreamAck";
 
   private static CameraManager cameraManager;
+  // Native frame analyzers by name, see registerFrameAnalyzer.
+  private static final Map<String, CameraFrameAnalyzer> frameAnalyzers = new HashMap<>();
   private final FlutterView view;
   private Camera camera;
+  // Characteristics by camera name, they do not change while the app runs.
+  private final Map<String, CameraCharacteristics> cameraCharacteristics = new HashMap<>();
+  // Capture, preview and video sizes by camera name, preset and orientation, see getCameraSizes.
+  private final Map<String, Size[]> cameraSizes = new HashMap<>();
+  // Camera left open after a dispose with a keep alive duration, reused by the next initialize
+  // with the same configuration.
+  private Camera keptAliveCamera;
   private Registrar registrar;
   // The code to run after requesting camera permissions.
   private Runnable cameraPermissionContinuation;
   private final OrientationEventListener orientationEventListener;
   private int currentOrientation = ORIENTATION_UNKNOWN;
+  // Results and events are sent on the platform thread.
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
   private CameraPlugin(Registrar registrar, FlutterView view) {
     this.registrar = registrar;
@@ -97,6 +132,22 @@ public class CameraPlugin implements MethodCallHandler {
     channel.setMethodCallHandler(new CameraPlugin(registrar, registrar.view()));
   }
 
+  /**
+   * Registers a native analyzer that dart can run on the image stream with {@code
+   * CameraController.startImageAnalysis(name, ...)}, typically from the activity onCreate.
+   */
+  public static void registerFrameAnalyzer(String name, CameraFrameAnalyzer analyzer) {
+    synchronized (frameAnalyzers) {
+      frameAnalyzers.put(name, analyzer);
+    }
+  }
+
+  public static void unregisterFrameAnalyzer(String name) {
+    synchronized (frameAnalyzers) {
+      frameAnalyzers.remove(name);
+    }
+  }
+
   @Override
   public void onMethodCall(MethodCall call, final Result result) {
     switch (call.method) {
@@ -106,8 +157,7 @@ public class CameraPlugin implements MethodCallHandler {
           List<Map<String, Object>> cameras = new ArrayList<>();
           for (String cameraName : cameraNames) {
             HashMap<String, Object> details = new HashMap<>();
-            CameraCharacteristics characteristics =
-                cameraManager.getCameraCharacteristics(cameraName);
+            CameraCharacteristics characteristics = getCameraCharacteristics(cameraName);
             details.put("name", cameraName);
             @SuppressWarnings("ConstantConditions")
             int sensorOrientation = characteristics.get(CameraCharacteristics.SENSOR_ORIENTATION);
@@ -140,25 +190,56 @@ public class CameraPlugin implements MethodCallHandler {
           if (camera != null) {
             camera.close();
           }
-          camera = new Camera(cameraName, resolutionPreset, result, enableAudio);
+          Camera reusedCamera = takeKeptAliveCamera();
+          if (reusedCamera != null
+              && reusedCamera.resume(cameraName, resolutionPreset, enableAudio, result)) {
+            camera = reusedCamera;
+          } else {
+            if (reusedCamera != null) {
+              reusedCamera.dispose();
+            }
+            camera = new Camera(cameraName, resolutionPreset, result, enableAudio);
+          }
           orientationEventListener.enable();
           break;
         }
+      case "prewarmCamera":
+        {
+          prewarmCamera(
+              (String) call.argument("cameraName"),
+              (String) call.argument("resolutionPreset"),
+              result);
+          break;
+        }
       case "takePicture":
         {
-          camera.takePicture((String) call.argument("path"), result);
+          camera.takePicture(
+              (String) call.argument("path"), (Integer) call.argument("jpegQuality"), result);
+          break;
+        }
+      case "takePictureBurst":
+        {
+          List<String> paths = call.argument("paths");
+          Integer width = call.argument("width");
+          Integer height = call.argument("height");
+          camera.takePictureBurst(
+              paths,
+              (Integer) call.argument("jpegQuality"),
+              width != null && height != null ? new Size(width, height) : null,
+              result);
           break;
         }
       case "prepareForVideoRecording":
         {
-          // This optimization is not required for Android.
-          result.success(null);
+          final Map<String, Object> videoSettings = call.argument("videoSettings");
+          camera.prepareForVideoRecording(VideoSettings.fromMap(videoSettings), result);
           break;
         }
       case "startVideoRecording":
         {
           final String filePath = call.argument("filePath");
-          camera.startVideoRecording(filePath, result);
+          final Map<String, Object> videoSettings = call.argument("videoSettings");
+          camera.startVideoRecording(filePath, VideoSettings.fromMap(videoSettings), result);
           break;
         }
       case "stopVideoRecording":
@@ -168,9 +249,31 @@ public class CameraPlugin implements MethodCallHandler {
         }
       case "startImageStream":
         {
+          String analyzerName = call.argument("analyzer");
+          CameraFrameAnalyzer analyzer = null;
+          if (analyzerName != null) {
+            synchronized (frameAnalyzers) {
+              analyzer = frameAnalyzers.get(analyzerName);
+            }
+            if (analyzer == null) {
+              result.error("unknownAnalyzer", "No frame analyzer named '" + analyzerName + "'", null);
+              break;
+            }
+          }
           try {
-            camera.startPreviewWithImageStream();
-            result.success(null);
+            camera.imageStreamAnalyzer = analyzer;
+            Integer width = call.argument("width");
+            Integer height = call.argument("height");
+            Number maxFps = call.argument("maxFps");
+            camera.startPreviewWithImageStream(
+                Boolean.TRUE.equals(call.argument("zeroCopy")),
+                width != null && height != null ? new Size(width, height) : null,
+                maxFps != null ? maxFps.doubleValue() : 0,
+                Boolean.TRUE.equals(call.argument("dropWhileBusy")));
+            Map<String, Object> reply = new HashMap<>();
+            reply.put("width", camera.imageStreamReader.getWidth());
+            reply.put("height", camera.imageStreamReader.getHeight());
+            result.success(reply);
           } catch (Exception e) {
             handleException(e, result);
           }
@@ -186,10 +289,21 @@ public class CameraPlugin implements MethodCallHandler {
           }
           break;
         }
+      case "getStats":
+        {
+          result.success(camera.stats.toMap());
+          break;
+        }
       case "dispose":
         {
+          Number keepAliveMillis = call.argument("keepAliveMillis");
           if (camera != null) {
-            camera.dispose();
+            if (keepAliveMillis != null && keepAliveMillis.longValue() > 0) {
+              keepCameraAlive(camera, keepAliveMillis.longValue());
+              camera = null;
+            } else {
+              camera.dispose();
+            }
           }
           orientationEventListener.disable();
           result.success(null);
@@ -201,6 +315,182 @@ public class CameraPlugin implements MethodCallHandler {
     }
   }
 
+  private CameraCharacteristics getCameraCharacteristics(String cameraName)
+      throws CameraAccessException {
+    CameraCharacteristics characteristics = cameraCharacteristics.get(cameraName);
+    if (characteristics == null) {
+      characteristics = cameraManager.getCameraCharacteristics(cameraName);
+      cameraCharacteristics.put(cameraName, characteristics);
+    }
+    return characteristics;
+  }
+
+  // Caches the characteristics of a camera and, if resolutionPreset is set, its sizes in the
+  // current orientation. Errors are replied directly, not through handleException which throws.
+  private void prewarmCamera(
+      String cameraName, @Nullable String resolutionPreset, @NonNull Result result) {
+    try {
+      if (resolutionPreset != null) {
+        getCameraSizes(cameraName, resolutionPreset);
+      } else {
+        getCameraCharacteristics(cameraName);
+      }
+      result.success(null);
+    } catch (Exception e) {
+      result.error(
+          e instanceof CameraAccessException ? "CameraAccess" : "prewarmFailed",
+          e.getMessage(),
+          null);
+    }
+  }
+
+  // The capture, preview and video sizes of a camera for a preset in the current orientation,
+  // they depend on the orientation through the screen size.
+  private Size[] getCameraSizes(String cameraName, String resolutionPreset)
+      throws CameraAccessException {
+    int minHeight;
+    switch (resolutionPreset) {
+      case "high":
+        minHeight = 720;
+        break;
+      case "medium":
+        minHeight = 480;
+        break;
+      case "low":
+        minHeight = 240;
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown preset: " + resolutionPreset);
+    }
+
+    CameraCharacteristics characteristics = getCameraCharacteristics(cameraName);
+    //noinspection ConstantConditions
+    int sensorOrientation = characteristics.get(CameraCharacteristics.SENSOR_ORIENTATION);
+    //noinspection ConstantConditions
+    boolean isFrontFacing =
+        characteristics.get(CameraCharacteristics.LENS_FACING)
+            == CameraMetadata.LENS_FACING_FRONT;
+    int orientation = computeMediaOrientation(sensorOrientation, isFrontFacing) % 180;
+    String sizesKey = cameraName + "/" + resolutionPreset + "/" + orientation;
+    Size[] sizes = cameraSizes.get(sizesKey);
+    if (sizes == null) {
+      StreamConfigurationMap streamConfigurationMap =
+          characteristics.get(CameraCharacteristics.SCALER_STREAM_CONFIGURATION_MAP);
+      Size captureSize = computeBestCaptureSize(streamConfigurationMap);
+      sizes =
+          computeBestPreviewAndRecordingSize(
+              streamConfigurationMap, minHeight, captureSize, orientation == 90);
+      cameraSizes.put(sizesKey, sizes);
+    }
+    return sizes;
+  }
+
+  // For still image captures, we use the largest available size.
+  private static Size computeBestCaptureSize(StreamConfigurationMap streamConfigurationMap) {
+    return Collections.max(
+        Arrays.asList(streamConfigurationMap.getOutputSizes(ImageFormat.JPEG)),
+        new CompareSizesByArea());
+  }
+
+  // Returns the capture, preview and video sizes.
+  private Size[] computeBestPreviewAndRecordingSize(
+      StreamConfigurationMap streamConfigurationMap,
+      int minHeight,
+      Size captureSize,
+      boolean swapWH) {
+    Size[] sizes = streamConfigurationMap.getOutputSizes(SurfaceTexture.class);
+
+    // Preview size and video size should not be greater than screen resolution or 1080.
+    Point screenResolution = new Point();
+
+    final Activity activity = registrar.activity();
+    if (activity == null) {
+      throw new IllegalStateException("No activity available!");
+    }
+
+    Display display = activity.getWindowManager().getDefaultDisplay();
+    display.getRealSize(screenResolution);
+
+    int screenWidth = swapWH ? screenResolution.y : screenResolution.x;
+    int screenHeight = swapWH ? screenResolution.x : screenResolution.y;
+
+    List<Size> goodEnough = new ArrayList<>();
+    for (Size s : sizes) {
+      if (minHeight <= s.getHeight()
+          && s.getWidth() <= screenWidth
+          && s.getHeight() <= screenHeight
+          && s.getHeight() <= 1080) {
+        goodEnough.add(s);
+      }
+    }
+
+    Collections.sort(goodEnough, new CompareSizesByArea());
+
+    Size previewSize;
+    Size videoSize;
+    if (goodEnough.isEmpty()) {
+      previewSize = sizes[0];
+      videoSize = sizes[0];
+    } else {
+      float captureSizeRatio = (float) captureSize.getWidth() / captureSize.getHeight();
+
+      previewSize = goodEnough.get(0);
+      for (Size s : goodEnough) {
+        if ((float) s.getWidth() / s.getHeight() == captureSizeRatio) {
+          previewSize = s;
+          break;
+        }
+      }
+
+      Collections.reverse(goodEnough);
+      videoSize = goodEnough.get(0);
+      for (Size s : goodEnough) {
+        if ((float) s.getWidth() / s.getHeight() == captureSizeRatio) {
+          videoSize = s;
+          break;
+        }
+      }
+    }
+    return new Size[] {captureSize, previewSize, videoSize};
+  }
+
+  private int computeMediaOrientation(int sensorOrientation, boolean isFrontFacing) {
+    final int sensorOrientationOffset =
+        (currentOrientation == ORIENTATION_UNKNOWN)
+            ? 0
+            : (isFrontFacing) ? -currentOrientation : currentOrientation;
+    return (sensorOrientationOffset + sensorOrientation + 360) % 360;
+  }
+
+  // Stops the preview of a disposed camera and keeps the device open for keepAliveMillis, a
+  // previously kept camera is disposed.
+  private void keepCameraAlive(final Camera camera, long keepAliveMillis) {
+    Camera previousCamera = takeKeptAliveCamera();
+    if (previousCamera != null) {
+      previousCamera.dispose();
+    }
+    camera.suspend();
+    keptAliveCamera = camera;
+    mainHandler.postDelayed(
+        new Runnable() {
+          @Override
+          public void run() {
+            if (keptAliveCamera == camera) {
+              keptAliveCamera = null;
+              camera.dispose();
+            }
+          }
+        },
+        keepAliveMillis);
+  }
+
+  @Nullable
+  private Camera takeKeptAliveCamera() {
+    Camera camera = keptAliveCamera;
+    keptAliveCamera = null;
+    return camera;
+  }
+
   // We move catching CameraAccessException out of onMethodCall because it causes a crash
   // on plugin registration for sdks incompatible with Camera2 (< 21). We want this plugin to
   // to be able to compile with <21 sdks for apps that want the camera and support earlier version.
@@ -234,23 +524,96 @@ public class CameraPlugin implements MethodCallHandler {
     }
   }
 
+  // Replies on the platform thread, for results completed from the camera thread or the JPEG
+  // writer.
+  private class MainThreadResult implements Result {
+    private final Result result;
+
+    MainThreadResult(Result result) {
+      this.result = result;
+    }
+
+    @Override
+    public void success(final Object value) {
+      mainHandler.post(
+          new Runnable() {
+            @Override
+            public void run() {
+              result.success(value);
+            }
+          });
+    }
+
+    @Override
+    public void error(final String errorCode, final String errorMessage, final Object errorDetails) {
+      mainHandler.post(
+          new Runnable() {
+            @Override
+            public void run() {
+              result.error(errorCode, errorMessage, errorDetails);
+            }
+          });
+    }
+
+    @Override
+    public void notImplemented() {
+      mainHandler.post(
+          new Runnable() {
+            @Override
+            public void run() {
+              result.notImplemented();
+            }
+          });
+    }
+  }
+
   private class Camera {
     private final FlutterView.SurfaceTextureEntry textureEntry;
     private CameraDevice cameraDevice;
     private CameraCaptureSession cameraCaptureSession;
     private EventChannel.EventSink eventSink;
     private ImageReader pictureImageReader;
+    // The burst being captured or written, failed on close.
+    @Nullable private PictureBurst pictureBurst;
     private ImageReader imageStreamReader;
     private int sensorOrientation;
     private boolean isFrontFacing;
     private String cameraName;
+    private String resolutionPreset;
     private Size captureSize;
     private Size previewSize;
+    private StreamConfigurationMap streamConfigurationMap;
     private CaptureRequest.Builder captureRequestBuilder;
     private Size videoSize;
     private MediaRecorder mediaRecorder;
     private boolean recordingVideo;
+    // Ready to record mode (API 23+), see prepareForVideoRecording: the recorder input surface is
+    // part of the preview session and only added to the repeating request while recording.
+    private Surface recorderSurface;
+    private VideoSettings recorderVideoSettings;
+    // Whether the current capture session has recorderSurface as an output.
+    private boolean recorderSurfaceConfigured;
     private boolean enableAudio;
+    // Image stream mode sending the planes through IMAGE_STREAM_FRAMES_CHANNEL.
+    private boolean imageStreamZeroCopy;
+    // Last layout sent to dart in zero copy mode, only sent again when it changes.
+    private int[] imageStreamLayout;
+    // 0 when not throttled.
+    private long imageStreamMinFrameIntervalNanos;
+    private long imageStreamLastFrameTimestamp;
+    // Skip frames while dart still handles a previous one.
+    private boolean imageStreamDropWhileBusy;
+    // When set, the frames are analyzed natively and only the analyzer results are sent.
+    private CameraFrameAnalyzer imageStreamAnalyzer;
+    // Incremented on the camera thread, decremented on the platform thread.
+    private final AtomicInteger imageStreamPendingFrameCount = new AtomicInteger();
+    // Camera device, session and image callbacks run on this thread. The camera state is only
+    // changed on the platform thread, the callbacks post their changes to mainHandler.
+    private HandlerThread cameraThread;
+    private Handler cameraHandler;
+    // Writes the pictures taken.
+    private ExecutorService jpegExecutor;
+    private final CameraStats stats = new CameraStats();
 
     Camera(
         final String cameraName,
@@ -259,29 +622,15 @@ public class CameraPlugin implements MethodCallHandler {
         final boolean enableAudio) {
 
       this.cameraName = cameraName;
+      this.resolutionPreset = resolutionPreset;
       this.enableAudio = enableAudio;
       textureEntry = view.createSurfaceTexture();
 
       registerEventChannel();
 
       try {
-        int minHeight;
-        switch (resolutionPreset) {
-          case "high":
-            minHeight = 720;
-            break;
-          case "medium":
-            minHeight = 480;
-            break;
-          case "low":
-            minHeight = 240;
-            break;
-          default:
-            throw new IllegalArgumentException("Unknown preset: " + resolutionPreset);
-        }
-
-        CameraCharacteristics characteristics = cameraManager.getCameraCharacteristics(cameraName);
-        StreamConfigurationMap streamConfigurationMap =
+        CameraCharacteristics characteristics = getCameraCharacteristics(cameraName);
+        streamConfigurationMap =
             characteristics.get(CameraCharacteristics.SCALER_STREAM_CONFIGURATION_MAP);
         //noinspection ConstantConditions
         sensorOrientation = characteristics.get(CameraCharacteristics.SENSOR_ORIENTATION);
@@ -289,8 +638,10 @@ public class CameraPlugin implements MethodCallHandler {
         isFrontFacing =
             characteristics.get(CameraCharacteristics.LENS_FACING)
                 == CameraMetadata.LENS_FACING_FRONT;
-        computeBestCaptureSize(streamConfigurationMap);
-        computeBestPreviewAndRecordingSize(streamConfigurationMap, minHeight, captureSize);
+        Size[] sizes = getCameraSizes(cameraName, resolutionPreset);
+        captureSize = sizes[0];
+        previewSize = sizes[1];
+        videoSize = sizes[2];
 
         if (cameraPermissionContinuation != null) {
           result.error("cameraPermission", "Camera permission request ongoing", null);
@@ -336,6 +687,46 @@ public class CameraPlugin implements MethodCallHandler {
       }
     }
 
+    // Closes the session of a disposed camera, discarding the recording in progress, the device
+    // and the readers stay open.
+    private void suspend() {
+      if (recordingVideo) {
+        recordingVideo = false;
+        mediaRecorder.reset();
+      }
+      if (imageStreamReader != null) {
+        imageStreamReader.setOnImageAvailableListener(null, null);
+      }
+      closeCaptureSession();
+    }
+
+    // Restarts the preview of a camera kept alive and replies to initialize, false if it cannot be
+    // reused for this configuration or its device got closed meanwhile.
+    private boolean resume(
+        String cameraName, String resolutionPreset, boolean enableAudio, @NonNull Result result) {
+      if (cameraDevice == null
+          || !this.cameraName.equals(cameraName)
+          || !this.resolutionPreset.equals(resolutionPreset)
+          || this.enableAudio != enableAudio) {
+        return false;
+      }
+      try {
+        startPreview();
+      } catch (CameraAccessException | IllegalStateException e) {
+        return false;
+      }
+      result.success(getInitializeReply());
+      return true;
+    }
+
+    private Map<String, Object> getInitializeReply() {
+      Map<String, Object> reply = new HashMap<>();
+      reply.put("textureId", textureEntry.id());
+      reply.put("previewWidth", previewSize.getWidth());
+      reply.put("previewHeight", previewSize.getHeight());
+      return reply;
+    }
+
     private void registerEventChannel() {
       new EventChannel(
               registrar.messenger(), "flutter.io/cameraPlugin/cameraEvents" + textureEntry.id())
@@ -375,150 +766,147 @@ public class CameraPlugin implements MethodCallHandler {
               == PackageManager.PERMISSION_GRANTED;
     }
 
-    private void computeBestPreviewAndRecordingSize(
-        StreamConfigurationMap streamConfigurationMap, int minHeight, Size captureSize) {
-      Size[] sizes = streamConfigurationMap.getOutputSizes(SurfaceTexture.class);
-
-      // Preview size and video size should not be greater than screen resolution or 1080.
-      Point screenResolution = new Point();
-
-      final Activity activity = registrar.activity();
-      if (activity == null) {
-        throw new IllegalStateException("No activity available!");
-      }
-
-      Display display = activity.getWindowManager().getDefaultDisplay();
-      display.getRealSize(screenResolution);
-
-      final boolean swapWH = getMediaOrientation() % 180 == 90;
-      int screenWidth = swapWH ? screenResolution.y : screenResolution.x;
-      int screenHeight = swapWH ? screenResolution.x : screenResolution.y;
-
-      List<Size> goodEnough = new ArrayList<>();
+    private Size computeBestPictureSize(Size pictureSize) {
+      List<Size> sizes = Arrays.asList(streamConfigurationMap.getOutputSizes(ImageFormat.JPEG));
+      Size best = null;
       for (Size s : sizes) {
-        if (minHeight <= s.getHeight()
-            && s.getWidth() <= screenWidth
-            && s.getHeight() <= screenHeight
-            && s.getHeight() <= 1080) {
-          goodEnough.add(s);
+        if (s.getWidth() >= pictureSize.getWidth()
+            && s.getHeight() >= pictureSize.getHeight()
+            && (best == null || new CompareSizesByArea().compare(s, best) < 0)) {
+          best = s;
         }
       }
+      // Nothing big enough, use the largest.
+      return best != null ? best : Collections.max(sizes, new CompareSizesByArea());
+    }
 
-      Collections.sort(goodEnough, new CompareSizesByArea());
-
-      if (goodEnough.isEmpty()) {
-        previewSize = sizes[0];
-        videoSize = sizes[0];
-      } else {
-        float captureSizeRatio = (float) captureSize.getWidth() / captureSize.getHeight();
-
-        previewSize = goodEnough.get(0);
-        for (Size s : goodEnough) {
-          if ((float) s.getWidth() / s.getHeight() == captureSizeRatio) {
-            previewSize = s;
-            break;
-          }
-        }
-
-        Collections.reverse(goodEnough);
-        videoSize = goodEnough.get(0);
-        for (Size s : goodEnough) {
-          if ((float) s.getWidth() / s.getHeight() == captureSizeRatio) {
-            videoSize = s;
-            break;
-          }
+    private Size computeBestImageStreamSize(Size streamSize) {
+      List<Size> sizes =
+          Arrays.asList(streamConfigurationMap.getOutputSizes(ImageFormat.YUV_420_888));
+      Size best = null;
+      for (Size s : sizes) {
+        if (s.getWidth() >= streamSize.getWidth()
+            && s.getHeight() >= streamSize.getHeight()
+            && (best == null || new CompareSizesByArea().compare(s, best) < 0)) {
+          best = s;
         }
       }
+      // Nothing big enough, use the largest.
+      return best != null ? best : Collections.max(sizes, new CompareSizesByArea());
     }
 
-    private void computeBestCaptureSize(StreamConfigurationMap streamConfigurationMap) {
-      // For still image captures, we use the largest available size.
-      captureSize =
-          Collections.max(
-              Arrays.asList(streamConfigurationMap.getOutputSizes(ImageFormat.JPEG)),
-              new CompareSizesByArea());
-    }
-
-    private void prepareMediaRecorder(String outputFilePath) throws IOException {
+    private void prepareMediaRecorder(String outputFilePath, VideoSettings videoSettings)
+        throws IOException {
       if (mediaRecorder != null) {
         mediaRecorder.release();
       }
       mediaRecorder = new MediaRecorder();
 
+      CamcorderProfile profile = null;
+      if (videoSettings.useCamcorderProfile) {
+        int cameraId;
+        try {
+          cameraId = Integer.parseInt(cameraName);
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException("No camcorder profile for camera " + cameraName);
+        }
+        profile =
+            CamcorderProfile.get(
+                cameraId, VideoSettings.getCamcorderProfileQuality(cameraId, resolutionPreset));
+      }
+
       if (enableAudio) mediaRecorder.setAudioSource(MediaRecorder.AudioSource.MIC);
       mediaRecorder.setVideoSource(MediaRecorder.VideoSource.SURFACE);
-      mediaRecorder.setOutputFormat(MediaRecorder.OutputFormat.MPEG_4);
-      if (enableAudio) mediaRecorder.setAudioEncoder(MediaRecorder.AudioEncoder.AAC);
-      mediaRecorder.setVideoEncoder(MediaRecorder.VideoEncoder.H264);
-      mediaRecorder.setVideoEncodingBitRate(1024 * 1000);
-      if (enableAudio) mediaRecorder.setAudioSamplingRate(16000);
-      mediaRecorder.setVideoFrameRate(27);
-      mediaRecorder.setVideoSize(videoSize.getWidth(), videoSize.getHeight());
+      videoSettings.apply(
+          mediaRecorder, profile, enableAudio, videoSize.getWidth(), videoSize.getHeight());
+      if (recorderSurface != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+        mediaRecorder.setInputSurface(recorderSurface);
+      }
       mediaRecorder.setOutputFile(outputFilePath);
       mediaRecorder.setOrientationHint(getMediaOrientation());
 
       mediaRecorder.prepare();
     }
 
-    private void open(@Nullable final Result result) {
+    private void open(@Nullable Result platformResult) {
+      final Result result = platformResult != null ? new MainThreadResult(platformResult) : null;
       if (!hasCameraPermission()) {
         if (result != null) result.error("cameraPermission", "Camera permission not granted", null);
       } else {
+        cameraThread = new HandlerThread("CameraBackground");
+        cameraThread.start();
+        final HandlerThread openingCameraThread = cameraThread;
+        cameraHandler = new Handler(cameraThread.getLooper());
+        jpegExecutor = Executors.newFixedThreadPool(PICTURE_WRITER_THREAD_COUNT);
         try {
           pictureImageReader =
               ImageReader.newInstance(
-                  captureSize.getWidth(), captureSize.getHeight(), ImageFormat.JPEG, 2);
+                  captureSize.getWidth(),
+                  captureSize.getHeight(),
+                  ImageFormat.JPEG,
+                  PICTURE_MAX_IMAGES);
 
           // Used to steam image byte data to dart side.
           imageStreamReader =
               ImageReader.newInstance(
                   previewSize.getWidth(), previewSize.getHeight(), ImageFormat.YUV_420_888, 2);
 
+          stats.onOpenStarted();
           cameraManager.openCamera(
               cameraName,
               new CameraDevice.StateCallback() {
                 @Override
-                public void onOpened(@NonNull CameraDevice cameraDevice) {
-                  Camera.this.cameraDevice = cameraDevice;
-                  try {
-                    startPreview();
-                  } catch (CameraAccessException e) {
-                    if (result != null) result.error("CameraAccess", e.getMessage(), null);
-                    cameraDevice.close();
-                    Camera.this.cameraDevice = null;
-                    return;
-                  }
-
-                  if (result != null) {
-                    Map<String, Object> reply = new HashMap<>();
-                    reply.put("textureId", textureEntry.id());
-                    reply.put("previewWidth", previewSize.getWidth());
-                    reply.put("previewHeight", previewSize.getHeight());
-                    result.success(reply);
-                  }
+                public void onOpened(@NonNull final CameraDevice cameraDevice) {
+                  stats.onOpened();
+                  mainHandler.post(
+                      new Runnable() {
+                        @Override
+                        public void run() {
+                          if (cameraThread != openingCameraThread) {
+                            // Closed while opening.
+                            cameraDevice.close();
+                            if (result != null) {
+                              result.error(
+                                  "cameraClosed", "The camera was closed while opening.", null);
+                            }
+                            return;
+                          }
+                          Camera.this.cameraDevice = cameraDevice;
+                          try {
+                            startPreview();
+                          } catch (CameraAccessException | IllegalStateException e) {
+                            if (result != null) result.error("CameraAccess", e.getMessage(), null);
+                            cameraDevice.close();
+                            Camera.this.cameraDevice = null;
+                            return;
+                          }
+
+                          if (result != null) {
+                            result.success(getInitializeReply());
+                          }
+                        }
+                      });
                 }
 
                 @Override
                 public void onClosed(@NonNull CameraDevice camera) {
-                  if (eventSink != null) {
-                    Map<String, String> event = new HashMap<>();
-                    event.put("eventType", "cameraClosing");
-                    eventSink.success(event);
-                  }
+                  Map<String, String> event = new HashMap<>();
+                  event.put("eventType", "cameraClosing");
+                  sendEvent(event);
                   super.onClosed(camera);
                 }
 
                 @Override
                 public void onDisconnected(@NonNull CameraDevice cameraDevice) {
                   cameraDevice.close();
-                  Camera.this.cameraDevice = null;
+                  onCameraDeviceClosed(cameraDevice);
                   sendErrorEvent("The camera was disconnected.");
                 }
 
                 @Override
                 public void onError(@NonNull CameraDevice cameraDevice, int errorCode) {
                   cameraDevice.close();
-                  Camera.this.cameraDevice = null;
+                  onCameraDeviceClosed(cameraDevice);
                   String errorDescription;
                   switch (errorCode) {
                     case ERROR_CAMERA_IN_USE:
@@ -543,13 +931,26 @@ public class CameraPlugin implements MethodCallHandler {
                   sendErrorEvent(errorDescription);
                 }
               },
-              null);
+              cameraHandler);
         } catch (CameraAccessException e) {
           if (result != null) result.error("cameraAccess", e.getMessage(), null);
         }
       }
     }
 
+    // Called on the camera thread when the framework closed the device.
+    private void onCameraDeviceClosed(final CameraDevice closedCameraDevice) {
+      mainHandler.post(
+          new Runnable() {
+            @Override
+            public void run() {
+              if (cameraDevice == closedCameraDevice) {
+                cameraDevice = null;
+              }
+            }
+          });
+    }
+
     private void writeToFile(ByteBuffer buffer, File file) throws IOException {
       try (FileOutputStream outputStream = new FileOutputStream(file)) {
         while (0 < buffer.remaining()) {
@@ -558,8 +959,11 @@ public class CameraPlugin implements MethodCallHandler {
       }
     }
 
-    private void takePicture(String filePath, @NonNull final Result result) {
+    private void takePicture(
+        String filePath, @Nullable Integer jpegQuality, @NonNull Result platformResult) {
+      final Result result = new MainThreadResult(platformResult);
       final File file = new File(filePath);
+      final long startTime = SystemClock.elapsedRealtime();
 
       if (file.exists()) {
         result.error(
@@ -569,26 +973,45 @@ public class CameraPlugin implements MethodCallHandler {
         return;
       }
 
+      final ExecutorService pictureWriter = jpegExecutor;
       pictureImageReader.setOnImageAvailableListener(
           new ImageReader.OnImageAvailableListener() {
             @Override
             public void onImageAvailable(ImageReader reader) {
-              try (Image image = reader.acquireLatestImage()) {
-                ByteBuffer buffer = image.getPlanes()[0].getBuffer();
-                writeToFile(buffer, file);
-                result.success(null);
-              } catch (IOException e) {
-                result.error("IOError", "Failed saving image", null);
+              final Image image = reader.acquireLatestImage();
+              if (image == null) return;
+              // Shut down on this thread when the camera is closed.
+              if (pictureWriter.isShutdown()) {
+                image.close();
+                return;
               }
+              // The image is closed once written.
+              pictureWriter.execute(
+                  new Runnable() {
+                    @Override
+                    public void run() {
+                      try (Image jpegImage = image) {
+                        ByteBuffer buffer = jpegImage.getPlanes()[0].getBuffer();
+                        writeToFile(buffer, file);
+                        stats.onPictureWritten(startTime);
+                        result.success(null);
+                      } catch (IOException e) {
+                        result.error("IOError", "Failed saving image", null);
+                      }
+                    }
+                  });
             }
           },
-          null);
+          cameraHandler);
 
       try {
         final CaptureRequest.Builder captureBuilder =
             cameraDevice.createCaptureRequest(CameraDevice.TEMPLATE_STILL_CAPTURE);
         captureBuilder.addTarget(pictureImageReader.getSurface());
         captureBuilder.set(CaptureRequest.JPEG_ORIENTATION, getMediaOrientation());
+        if (jpegQuality != null) {
+          captureBuilder.set(CaptureRequest.JPEG_QUALITY, (byte) (int) jpegQuality);
+        }
 
         cameraCaptureSession.capture(
             captureBuilder.build(),
@@ -598,27 +1021,335 @@ public class CameraPlugin implements MethodCallHandler {
                   @NonNull CameraCaptureSession session,
                   @NonNull CaptureRequest request,
                   @NonNull CaptureFailure failure) {
-                String reason;
-                switch (failure.getReason()) {
-                  case CaptureFailure.REASON_ERROR:
-                    reason = "An error happened in the framework";
-                    break;
-                  case CaptureFailure.REASON_FLUSHED:
-                    reason = "The capture has failed due to an abortCaptures() call";
-                    break;
-                  default:
-                    reason = "Unknown reason";
-                }
-                result.error("captureFailure", reason, null);
+                result.error("captureFailure", getCaptureFailureReason(failure), null);
               }
             },
+            cameraHandler);
+      } catch (CameraAccessException e) {
+        result.error("cameraAccess", e.getMessage(), null);
+      }
+    }
+
+    private String getCaptureFailureReason(CaptureFailure failure) {
+      switch (failure.getReason()) {
+        case CaptureFailure.REASON_ERROR:
+          return "An error happened in the framework";
+        case CaptureFailure.REASON_FLUSHED:
+          return "The capture has failed due to an abortCaptures() call";
+        default:
+          return "Unknown reason";
+      }
+    }
+
+    // State of a burst, only used on the platform thread.
+    private class PictureBurst {
+      final ImageReader reader;
+      final List<String> filePaths;
+      final Result result;
+      // Index of the file for the next image acquired.
+      int nextIndex;
+      // Images acquired from the reader and not written yet.
+      int acquiredCount;
+      // Images not written or failed yet.
+      int remainingCount;
+      String errorCode;
+      String errorMessage;
+      // Replied, the images still in flight are ignored.
+      boolean done;
+
+      PictureBurst(ImageReader reader, List<String> filePaths, Result result) {
+        this.reader = reader;
+        this.filePaths = filePaths;
+        this.result = result;
+        remainingCount = filePaths.size();
+      }
+
+      void onDone(@Nullable String errorCode, @Nullable String errorMessage) {
+        if (errorCode != null && this.errorCode == null) {
+          this.errorCode = errorCode;
+          this.errorMessage = errorMessage;
+        }
+        if (--remainingCount == 0 && !done) {
+          done = true;
+          if (this.errorCode != null) {
+            result.error(this.errorCode, this.errorMessage, null);
+          } else {
+            result.success(null);
+          }
+          onFinished();
+        }
+      }
+
+      // Replies with an error for the images not written yet.
+      void fail(String errorCode, String errorMessage) {
+        if (!done) {
+          done = true;
+          result.error(errorCode, errorMessage, null);
+          onFinished();
+        }
+      }
+
+      private void onFinished() {
+        if (pictureBurst == this) {
+          pictureBurst = null;
+        }
+      }
+    }
+
+    // Takes all the pictures in a single captureBurst, they are written by the jpegExecutor
+    // threads while the next ones are captured. pictureSize (if set) selects the smallest JPEG size
+    // at least as big, reconfiguring the preview session if it changes.
+    private void takePictureBurst(
+        final List<String> filePaths,
+        @Nullable final Integer jpegQuality,
+        @Nullable Size pictureSize,
+        @NonNull Result platformResult) {
+      final Result result = new MainThreadResult(platformResult);
+      if (cameraDevice == null) {
+        result.error("cameraClosed", "The camera is closed.", null);
+        return;
+      }
+      if (filePaths == null || filePaths.isEmpty()) {
+        result.success(null);
+        return;
+      }
+      for (String filePath : filePaths) {
+        if (new File(filePath).exists()) {
+          result.error(
+              "fileExists",
+              "File at path '" + filePath + "' already exists. Cannot overwrite.",
+              null);
+          return;
+        }
+      }
+
+      final Runnable capture =
+          new Runnable() {
+            @Override
+            public void run() {
+              captureBurst(filePaths, jpegQuality, result);
+            }
+          };
+      if (pictureSize == null) {
+        capture.run();
+        return;
+      }
+      Size size = computeBestPictureSize(pictureSize);
+      if (size.getWidth() == pictureImageReader.getWidth()
+          && size.getHeight() == pictureImageReader.getHeight()) {
+        capture.run();
+        return;
+      }
+      if (recordingVideo) {
+        result.error(
+            "captureSizeUnavailable",
+            "The picture size cannot be changed while recording a video.",
             null);
+        return;
+      }
+      // No picture is being written, dart waits for the previous one to complete. The session
+      // still targets the reader surface, it is closed first.
+      closeCaptureSession();
+      pictureImageReader.close();
+      pictureImageReader =
+          ImageReader.newInstance(
+              size.getWidth(), size.getHeight(), ImageFormat.JPEG, PICTURE_MAX_IMAGES);
+      try {
+        startPreview(capture, null, result);
       } catch (CameraAccessException e) {
         result.error("cameraAccess", e.getMessage(), null);
       }
     }
 
-    private void startVideoRecording(String filePath, @NonNull final Result result) {
+    private void captureBurst(
+        List<String> filePaths, @Nullable Integer jpegQuality, final Result result) {
+      final PictureBurst burst = new PictureBurst(pictureImageReader, filePaths, result);
+      pictureBurst = burst;
+      // Acquiring is cheap, the images are written by the jpegExecutor threads.
+      pictureImageReader.setOnImageAvailableListener(
+          new ImageReader.OnImageAvailableListener() {
+            @Override
+            public void onImageAvailable(ImageReader reader) {
+              acquireBurstImages(burst);
+            }
+          },
+          mainHandler);
+
+      try {
+        final CaptureRequest.Builder captureBuilder =
+            cameraDevice.createCaptureRequest(CameraDevice.TEMPLATE_STILL_CAPTURE);
+        captureBuilder.addTarget(pictureImageReader.getSurface());
+        captureBuilder.set(CaptureRequest.JPEG_ORIENTATION, getMediaOrientation());
+        if (jpegQuality != null) {
+          captureBuilder.set(CaptureRequest.JPEG_QUALITY, (byte) (int) jpegQuality);
+        }
+        CaptureRequest request = captureBuilder.build();
+        List<CaptureRequest> requests = new ArrayList<>();
+        for (int i = 0; i < filePaths.size(); i++) {
+          requests.add(request);
+        }
+
+        cameraCaptureSession.captureBurst(
+            requests,
+            new CameraCaptureSession.CaptureCallback() {
+              @Override
+              public void onCaptureFailed(
+                  @NonNull CameraCaptureSession session,
+                  @NonNull CaptureRequest request,
+                  @NonNull final CaptureFailure failure) {
+                if (failure.wasImageCaptured()) {
+                  // The image is still produced and written.
+                  return;
+                }
+                mainHandler.post(
+                    new Runnable() {
+                      @Override
+                      public void run() {
+                        burst.onDone("captureFailure", getCaptureFailureReason(failure));
+                      }
+                    });
+              }
+            },
+            cameraHandler);
+      } catch (CameraAccessException | IllegalStateException e) {
+        burst.fail("cameraAccess", e.getMessage());
+      }
+    }
+
+    // Acquires the available images (at most PICTURE_MAX_IMAGES at a time) and writes them, called
+    // again when a write completes to acquire the images waiting in the reader.
+    private void acquireBurstImages(final PictureBurst burst) {
+      // Closed meanwhile.
+      if (burst.reader != pictureImageReader) {
+        burst.fail("cameraClosed", "The camera was closed during the burst.");
+        return;
+      }
+      while (burst.acquiredCount < PICTURE_MAX_IMAGES
+          && burst.nextIndex < burst.filePaths.size()) {
+        final Image image = burst.reader.acquireNextImage();
+        if (image == null) {
+          return;
+        }
+        burst.acquiredCount++;
+        final File file = new File(burst.filePaths.get(burst.nextIndex++));
+        jpegExecutor.execute(
+            new Runnable() {
+              @Override
+              public void run() {
+                String errorCode = null;
+                String errorMessage = null;
+                try (Image jpegImage = image) {
+                  writeToFile(jpegImage.getPlanes()[0].getBuffer(), file);
+                } catch (IOException e) {
+                  errorCode = "IOError";
+                  errorMessage = "Failed saving image";
+                }
+                final String doneErrorCode = errorCode;
+                final String doneErrorMessage = errorMessage;
+                mainHandler.post(
+                    new Runnable() {
+                      @Override
+                      public void run() {
+                        burst.acquiredCount--;
+                        burst.onDone(doneErrorCode, doneErrorMessage);
+                        acquireBurstImages(burst);
+                      }
+                    });
+              }
+            });
+      }
+    }
+
+    // Makes the next recordings start and stop without reconfiguring the capture session: a
+    // persistent recorder surface is added to the preview session. The surface is first connected
+    // to a recorder writing to a temporary file so the session knows the video size. The
+    // recordings then use videoSettings. Does nothing before Android 6.0.
+    private void prepareForVideoRecording(
+        VideoSettings videoSettings, @NonNull Result platformResult) {
+      final Result result = new MainThreadResult(platformResult);
+      if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+        result.success(null);
+        return;
+      }
+      if (cameraDevice == null) {
+        result.error("cameraClosed", "The camera is closed.", null);
+        return;
+      }
+      if (recordingVideo) {
+        result.error(
+            "videoRecordingFailed", "Cannot prepare while a video is being recorded.", null);
+        return;
+      }
+      final File connectFile;
+      try {
+        if (recorderSurface == null) {
+          recorderSurface = MediaCodec.createPersistentInputSurface();
+        }
+        recorderVideoSettings = videoSettings;
+        connectFile =
+            File.createTempFile("camera_prepare", ".mp4", registrar.context().getCacheDir());
+        prepareMediaRecorder(connectFile.getPath(), videoSettings);
+      } catch (IOException | IllegalArgumentException e) {
+        result.error("videoRecordingFailed", e.getMessage(), null);
+        // Back to the default mode, without the surface in the session.
+        if (recorderSurfaceConfigured) {
+          closeCaptureSession();
+          releaseRecorderSurface();
+          try {
+            startPreview();
+          } catch (CameraAccessException accessException) {
+            sendErrorEvent(accessException.getMessage());
+          }
+        } else {
+          releaseRecorderSurface();
+        }
+        return;
+      }
+      // The session could not be configured with the surface, release what was set up for it.
+      final Runnable onFailed =
+          new Runnable() {
+            @Override
+            public void run() {
+              // Closed meanwhile, the recorder is released.
+              if (mediaRecorder != null) {
+                mediaRecorder.reset();
+              }
+              //noinspection ResultOfMethodCallIgnored
+              connectFile.delete();
+              releaseRecorderSurface();
+            }
+          };
+      try {
+        startPreview(
+            new Runnable() {
+              @Override
+              public void run() {
+                // The session keeps the surface, the recorder is prepared for each recording.
+                mediaRecorder.reset();
+                //noinspection ResultOfMethodCallIgnored
+                connectFile.delete();
+                result.success(null);
+              }
+            },
+            onFailed,
+            result);
+      } catch (CameraAccessException e) {
+        onFailed.run();
+        result.error("cameraAccess", e.getMessage(), null);
+      }
+    }
+
+    private void releaseRecorderSurface() {
+      if (recorderSurface != null) {
+        recorderSurface.release();
+        recorderSurface = null;
+      }
+      recorderVideoSettings = null;
+    }
+
+    private void startVideoRecording(
+        String filePath, VideoSettings videoSettings, @NonNull Result platformResult) {
+      final Result result = new MainThreadResult(platformResult);
       if (cameraDevice == null) {
         result.error("configureFailed", "Camera was closed during configuration.", null);
         return;
@@ -630,9 +1361,14 @@ public class CameraPlugin implements MethodCallHandler {
             null);
         return;
       }
+      if (recorderSurfaceConfigured) {
+        startPreparedVideoRecording(filePath, result);
+        return;
+      }
       try {
         closeCaptureSession();
-        prepareMediaRecorder(filePath);
+        prepareMediaRecorder(
+            filePath, recorderVideoSettings != null ? recorderVideoSettings : videoSettings);
 
         recordingVideo = true;
 
@@ -646,32 +1382,41 @@ public class CameraPlugin implements MethodCallHandler {
         surfaces.add(previewSurface);
         captureRequestBuilder.addTarget(previewSurface);
 
-        Surface recorderSurface = mediaRecorder.getSurface();
-        surfaces.add(recorderSurface);
-        captureRequestBuilder.addTarget(recorderSurface);
+        Surface mediaRecorderSurface =
+            recorderSurface != null ? recorderSurface : mediaRecorder.getSurface();
+        surfaces.add(mediaRecorderSurface);
+        captureRequestBuilder.addTarget(mediaRecorderSurface);
 
         cameraDevice.createCaptureSession(
             surfaces,
             new CameraCaptureSession.StateCallback() {
               @Override
-              public void onConfigured(@NonNull CameraCaptureSession cameraCaptureSession) {
-                try {
-                  if (cameraDevice == null) {
-                    result.error("configureFailed", "Camera was closed during configuration", null);
-                    return;
-                  }
-                  Camera.this.cameraCaptureSession = cameraCaptureSession;
-                  captureRequestBuilder.set(
-                      CaptureRequest.CONTROL_MODE, CameraMetadata.CONTROL_MODE_AUTO);
-                  cameraCaptureSession.setRepeatingRequest(
-                      captureRequestBuilder.build(), null, null);
-                  mediaRecorder.start();
-                  result.success(null);
-                } catch (CameraAccessException
-                    | IllegalStateException
-                    | IllegalArgumentException e) {
-                  result.error("cameraException", e.getMessage(), null);
-                }
+              public void onConfigured(@NonNull final CameraCaptureSession session) {
+                mainHandler.post(
+                    new Runnable() {
+                      @Override
+                      public void run() {
+                        try {
+                          if (cameraDevice == null) {
+                            session.close();
+                            result.error(
+                                "configureFailed", "Camera was closed during configuration", null);
+                            return;
+                          }
+                          cameraCaptureSession = session;
+                          captureRequestBuilder.set(
+                              CaptureRequest.CONTROL_MODE, CameraMetadata.CONTROL_MODE_AUTO);
+                          cameraCaptureSession.setRepeatingRequest(
+                              captureRequestBuilder.build(), null, cameraHandler);
+                          mediaRecorder.start();
+                          result.success(null);
+                        } catch (CameraAccessException
+                            | IllegalStateException
+                            | IllegalArgumentException e) {
+                          result.error("cameraException", e.getMessage(), null);
+                        }
+                      }
+                    });
               }
 
               @Override
@@ -679,8 +1424,32 @@ public class CameraPlugin implements MethodCallHandler {
                 result.error("configureFailed", "Failed to configure camera session", null);
               }
             },
-            null);
-      } catch (CameraAccessException | IOException e) {
+            cameraHandler);
+      } catch (CameraAccessException | IOException | IllegalArgumentException e) {
+        result.error("videoRecordingFailed", e.getMessage(), null);
+      }
+    }
+
+    // The recorder is started before its surface is added to the repeating request, so the first
+    // frames are not lost.
+    private void startPreparedVideoRecording(String filePath, Result result) {
+      try {
+        prepareMediaRecorder(filePath, recorderVideoSettings);
+        mediaRecorder.start();
+        recordingVideo = true;
+        captureRequestBuilder.addTarget(recorderSurface);
+        cameraCaptureSession.setRepeatingRequest(
+            captureRequestBuilder.build(), null, cameraHandler);
+        result.success(null);
+      } catch (CameraAccessException
+          | IOException
+          | IllegalStateException
+          | IllegalArgumentException e) {
+        if (recordingVideo) {
+          recordingVideo = false;
+          captureRequestBuilder.removeTarget(recorderSurface);
+        }
+        mediaRecorder.reset();
         result.error("videoRecordingFailed", e.getMessage(), null);
       }
     }
@@ -693,9 +1462,18 @@ public class CameraPlugin implements MethodCallHandler {
 
       try {
         recordingVideo = false;
-        mediaRecorder.stop();
-        mediaRecorder.reset();
-        startPreview();
+        if (recorderSurfaceConfigured) {
+          // Back to the preview only request, the session stays as is.
+          captureRequestBuilder.removeTarget(recorderSurface);
+          cameraCaptureSession.setRepeatingRequest(
+              captureRequestBuilder.build(), null, cameraHandler);
+          mediaRecorder.stop();
+          mediaRecorder.reset();
+        } else {
+          mediaRecorder.stop();
+          mediaRecorder.reset();
+          startPreview();
+        }
         result.success(null);
       } catch (CameraAccessException | IllegalStateException e) {
         result.error("videoRecordingFailed", e.getMessage(), null);
@@ -703,11 +1481,26 @@ public class CameraPlugin implements MethodCallHandler {
     }
 
     private void startPreview() throws CameraAccessException {
+      startPreview(null, null, null);
+    }
+
+    // onStarted is run on the platform thread once the repeating preview request is set, otherwise
+    // onFailed is run on the platform thread and the failure is also reported to onStartedResult.
+    private void startPreview(
+        @Nullable final Runnable onStarted,
+        @Nullable final Runnable onFailed,
+        @Nullable final Result onStartedResult)
+        throws CameraAccessException {
       closeCaptureSession();
 
       SurfaceTexture surfaceTexture = textureEntry.surfaceTexture();
       surfaceTexture.setDefaultBufferSize(previewSize.getWidth(), previewSize.getHeight());
-      captureRequestBuilder = cameraDevice.createCaptureRequest(CameraDevice.TEMPLATE_PREVIEW);
+      // The record template when ready to record, not to change the 3A settings on record start.
+      captureRequestBuilder =
+          cameraDevice.createCaptureRequest(
+              recorderSurface != null
+                  ? CameraDevice.TEMPLATE_RECORD
+                  : CameraDevice.TEMPLATE_PREVIEW);
 
       List<Surface> surfaces = new ArrayList<>();
 
@@ -716,37 +1509,131 @@ public class CameraPlugin implements MethodCallHandler {
       captureRequestBuilder.addTarget(previewSurface);
 
       surfaces.add(pictureImageReader.getSurface());
+      final Surface sessionRecorderSurface = recorderSurface;
+      if (sessionRecorderSurface != null) {
+        surfaces.add(sessionRecorderSurface);
+      }
 
       cameraDevice.createCaptureSession(
           surfaces,
           new CameraCaptureSession.StateCallback() {
 
             @Override
-            public void onConfigured(@NonNull CameraCaptureSession session) {
+            public void onConfigured(@NonNull final CameraCaptureSession session) {
+              mainHandler.post(
+                  new Runnable() {
+                    @Override
+                    public void run() {
+                      onPreviewConfigured(session);
+                    }
+                  });
+            }
+
+            private void onPreviewConfigured(CameraCaptureSession session) {
               if (cameraDevice == null) {
-                sendErrorEvent("The camera was closed during configuration.");
+                session.close();
+                sendPreviewErrorEvent("The camera was closed during configuration.");
                 return;
               }
               try {
                 cameraCaptureSession = session;
+                recorderSurfaceConfigured =
+                    sessionRecorderSurface != null && sessionRecorderSurface == recorderSurface;
                 captureRequestBuilder.set(
                     CaptureRequest.CONTROL_MODE, CameraMetadata.CONTROL_MODE_AUTO);
-                cameraCaptureSession.setRepeatingRequest(captureRequestBuilder.build(), null, null);
+                cameraCaptureSession.setRepeatingRequest(
+                    captureRequestBuilder.build(),
+                    stats.hasFirstFrame() ? null : firstFrameCallback,
+                    cameraHandler);
               } catch (CameraAccessException | IllegalStateException | IllegalArgumentException e) {
-                sendErrorEvent(e.getMessage());
+                sendPreviewErrorEvent(e.getMessage());
+                return;
+              }
+              if (onStarted != null) {
+                onStarted.run();
               }
             }
 
             @Override
             public void onConfigureFailed(@NonNull CameraCaptureSession cameraCaptureSession) {
-              sendErrorEvent("Failed to configure the camera for preview.");
+              mainHandler.post(
+                  new Runnable() {
+                    @Override
+                    public void run() {
+                      sendPreviewErrorEvent("Failed to configure the camera for preview.");
+                    }
+                  });
+            }
+
+            private void sendPreviewErrorEvent(String errorDescription) {
+              if (onFailed != null) {
+                onFailed.run();
+              }
+              sendErrorEvent(errorDescription);
+              if (onStartedResult != null) {
+                onStartedResult.error("configureFailed", errorDescription, null);
+              }
             }
           },
-          null);
+          cameraHandler);
     }
 
-    private void startPreviewWithImageStream() throws CameraAccessException {
+    // Records the first preview frame in the stats.
+    private final CameraCaptureSession.CaptureCallback firstFrameCallback =
+        new CameraCaptureSession.CaptureCallback() {
+          @Override
+          public void onCaptureCompleted(
+              @NonNull CameraCaptureSession session,
+              @NonNull CaptureRequest request,
+              @NonNull TotalCaptureResult result) {
+            stats.onFirstFrame();
+          }
+        };
+
+    // Counts the frames produced for the image stream in the stats.
+    private final CameraCaptureSession.CaptureCallback imageStreamCaptureCallback =
+        new CameraCaptureSession.CaptureCallback() {
+          @Override
+          public void onCaptureCompleted(
+              @NonNull CameraCaptureSession session,
+              @NonNull CaptureRequest request,
+              @NonNull TotalCaptureResult result) {
+            stats.onFirstFrame();
+            stats.onImageStreamFrameProduced();
+          }
+        };
+
+    // The image stream uses the smallest YUV size at least as big as streamSize (the preview size if
+    // null), frames closer than 1/maxFps to the previous one (if maxFps > 0) are skipped.
+    private void startPreviewWithImageStream(
+        boolean zeroCopy, @Nullable Size streamSize, double maxFps, boolean dropWhileBusy)
+        throws CameraAccessException {
       closeCaptureSession();
+      imageStreamZeroCopy = zeroCopy;
+      imageStreamMinFrameIntervalNanos = maxFps > 0 ? (long) (1000000000 / maxFps) : 0;
+      imageStreamDropWhileBusy = dropWhileBusy;
+
+      Size imageStreamSize =
+          streamSize == null ? previewSize : computeBestImageStreamSize(streamSize);
+      if (imageStreamReader.getWidth() != imageStreamSize.getWidth()
+          || imageStreamReader.getHeight() != imageStreamSize.getHeight()) {
+        // Closed on the camera thread after its pending image callbacks, as in close().
+        final ImageReader replacedImageStreamReader = imageStreamReader;
+        replacedImageStreamReader.setOnImageAvailableListener(null, null);
+        cameraHandler.post(
+            new Runnable() {
+              @Override
+              public void run() {
+                replacedImageStreamReader.close();
+              }
+            });
+        imageStreamReader =
+            ImageReader.newInstance(
+                imageStreamSize.getWidth(),
+                imageStreamSize.getHeight(),
+                ImageFormat.YUV_420_888,
+                2);
+      }
 
       SurfaceTexture surfaceTexture = textureEntry.surfaceTexture();
       surfaceTexture.setDefaultBufferSize(previewSize.getWidth(), previewSize.getHeight());
@@ -767,19 +1654,31 @@ public class CameraPlugin implements MethodCallHandler {
           surfaces,
           new CameraCaptureSession.StateCallback() {
             @Override
-            public void onConfigured(@NonNull CameraCaptureSession session) {
-              if (cameraDevice == null) {
-                sendErrorEvent("The camera was closed during configuration.");
-                return;
-              }
-              try {
-                cameraCaptureSession = session;
-                captureRequestBuilder.set(
-                    CaptureRequest.CONTROL_MODE, CameraMetadata.CONTROL_MODE_AUTO);
-                cameraCaptureSession.setRepeatingRequest(captureRequestBuilder.build(), null, null);
-              } catch (CameraAccessException | IllegalStateException | IllegalArgumentException e) {
-                sendErrorEvent(e.getMessage());
-              }
+            public void onConfigured(@NonNull final CameraCaptureSession session) {
+              mainHandler.post(
+                  new Runnable() {
+                    @Override
+                    public void run() {
+                      if (cameraDevice == null) {
+                        session.close();
+                        sendErrorEvent("The camera was closed during configuration.");
+                        return;
+                      }
+                      try {
+                        cameraCaptureSession = session;
+                        captureRequestBuilder.set(
+                            CaptureRequest.CONTROL_MODE, CameraMetadata.CONTROL_MODE_AUTO);
+                        cameraCaptureSession.setRepeatingRequest(
+                            captureRequestBuilder.build(),
+                            imageStreamCaptureCallback,
+                            cameraHandler);
+                      } catch (CameraAccessException
+                          | IllegalStateException
+                          | IllegalArgumentException e) {
+                        sendErrorEvent(e.getMessage());
+                      }
+                    }
+                  });
             }
 
             @Override
@@ -787,7 +1686,7 @@ public class CameraPlugin implements MethodCallHandler {
               sendErrorEvent("Failed to configure the camera for streaming images.");
             }
           },
-          null);
+          cameraHandler);
 
       registerImageStreamEventChannel();
     }
@@ -800,7 +1699,13 @@ public class CameraPlugin implements MethodCallHandler {
           new EventChannel.StreamHandler() {
             @Override
             public void onListen(Object o, EventChannel.EventSink eventSink) {
-              setImageStreamImageAvailableListener(eventSink);
+              if (imageStreamAnalyzer != null) {
+                setImageStreamAnalyzerImageAvailableListener(eventSink, imageStreamAnalyzer);
+              } else if (imageStreamZeroCopy) {
+                setImageStreamZeroCopyImageAvailableListener(eventSink);
+              } else {
+                setImageStreamImageAvailableListener(eventSink);
+              }
             }
 
             @Override
@@ -810,13 +1715,87 @@ public class CameraPlugin implements MethodCallHandler {
           });
     }
 
+    // Whether the frame comes too soon after the last one sent for the max fps.
+    private boolean isImageStreamFrameTooEarly(Image img) {
+      return imageStreamMinFrameIntervalNanos > 0
+          && imageStreamLastFrameTimestamp != 0
+          && img.getTimestamp() - imageStreamLastFrameTimestamp < imageStreamMinFrameIntervalNanos;
+    }
+
+    // The analyzer runs on the camera thread, frames arriving meanwhile are dropped by
+    // acquireLatestImage.
+    private void setImageStreamAnalyzerImageAvailableListener(
+        final EventChannel.EventSink eventSink, final CameraFrameAnalyzer analyzer) {
+      imageStreamLastFrameTimestamp = 0;
+      imageStreamReader.setOnImageAvailableListener(
+          new ImageReader.OnImageAvailableListener() {
+            @Override
+            public void onImageAvailable(final ImageReader reader) {
+              Image img = reader.acquireLatestImage();
+              if (img == null) return;
+              stats.onImageStreamFrameAcquired();
+              if (isImageStreamFrameTooEarly(img)) {
+                img.close();
+                return;
+              }
+              imageStreamLastFrameTimestamp = img.getTimestamp();
+
+              final Object analysis;
+              try {
+                analysis = analyzer.analyze(img, getMediaOrientation());
+              } catch (RuntimeException e) {
+                sendErrorEvent("Frame analyzer failed: " + e.getMessage());
+                return;
+              } finally {
+                img.close();
+              }
+              stats.onImageStreamFrameDelivered();
+              if (analysis == null) return;
+
+              mainHandler.post(
+                  new Runnable() {
+                    @Override
+                    public void run() {
+                      eventSink.success(analysis);
+                    }
+                  });
+            }
+          },
+          cameraHandler);
+    }
+
     private void setImageStreamImageAvailableListener(final EventChannel.EventSink eventSink) {
+      imageStreamLastFrameTimestamp = 0;
+      imageStreamPendingFrameCount.set(0);
+      if (imageStreamDropWhileBusy) {
+        registrar
+            .messenger()
+            .setMessageHandler(
+                IMAGE_STREAM_ACK_CHANNEL,
+                new BinaryMessenger.BinaryMessageHandler() {
+                  @Override
+                  public void onMessage(ByteBuffer message, BinaryMessenger.BinaryReply reply) {
+                    // Ignore acknowledgments of frames sent before the stream restarted.
+                    if (imageStreamPendingFrameCount.decrementAndGet() < 0) {
+                      imageStreamPendingFrameCount.set(0);
+                    }
+                    reply.reply(null);
+                  }
+                });
+      }
       imageStreamReader.setOnImageAvailableListener(
           new ImageReader.OnImageAvailableListener() {
             @Override
             public void onImageAvailable(final ImageReader reader) {
               Image img = reader.acquireLatestImage();
               if (img == null) return;
+              stats.onImageStreamFrameAcquired();
+              if (isImageStreamFrameTooEarly(img)
+                  || (imageStreamDropWhileBusy && imageStreamPendingFrameCount.get() > 0)) {
+                img.close();
+                return;
+              }
+              imageStreamLastFrameTimestamp = img.getTimestamp();
 
               List<Map<String, Object>> planes = new ArrayList<>();
               for (Image.Plane plane : img.getPlanes()) {
@@ -833,29 +1812,156 @@ public class CameraPlugin implements MethodCallHandler {
                 planes.add(planeBuffer);
               }
 
-              Map<String, Object> imageBuffer = new HashMap<>();
+              final Map<String, Object> imageBuffer = new HashMap<>();
               imageBuffer.put("width", img.getWidth());
               imageBuffer.put("height", img.getHeight());
               imageBuffer.put("format", img.getFormat());
               imageBuffer.put("planes", planes);
+              img.close();
 
-              eventSink.success(imageBuffer);
+              if (imageStreamDropWhileBusy) {
+                imageStreamPendingFrameCount.incrementAndGet();
+              }
+              stats.onImageStreamFrameDelivered();
+              mainHandler.post(
+                  new Runnable() {
+                    @Override
+                    public void run() {
+                      eventSink.success(imageBuffer);
+                    }
+                  });
+            }
+          },
+          cameraHandler);
+    }
+
+    // Frames are copied into a pooled direct buffer holding all the planes one after the other and
+    // sent through IMAGE_STREAM_FRAMES_CHANNEL, the buffer is reused once dart replies. The image
+    // size, format and plane strides/lengths are sent on the image stream event channel only when
+    // they change.
+    private void setImageStreamZeroCopyImageAvailableListener(
+        final EventChannel.EventSink eventSink) {
+      final BinaryMessenger messenger = registrar.messenger();
+      // A single buffer when dropping frames while dart is busy.
+      final ImageStreamBufferPool bufferPool =
+          new ImageStreamBufferPool(imageStreamDropWhileBusy ? 1 : IMAGE_STREAM_BUFFER_COUNT);
+      imageStreamLayout = null;
+      imageStreamLastFrameTimestamp = 0;
+      imageStreamReader.setOnImageAvailableListener(
+          new ImageReader.OnImageAvailableListener() {
+            // Reused for each frame to compare with imageStreamLayout.
+            private int[] layout = new int[0];
+
+            @Override
+            public void onImageAvailable(final ImageReader reader) {
+              Image img = reader.acquireLatestImage();
+              if (img == null) return;
+              stats.onImageStreamFrameAcquired();
+              if (isImageStreamFrameTooEarly(img)) {
+                img.close();
+                return;
+              }
+
+              Image.Plane[] planes = img.getPlanes();
+              if (layout.length != 3 + planes.length * 3) {
+                layout = new int[3 + planes.length * 3];
+              }
+              layout[0] = img.getWidth();
+              layout[1] = img.getHeight();
+              layout[2] = img.getFormat();
+              int size = 0;
+              for (int i = 0; i < planes.length; i++) {
+                int length = planes[i].getBuffer().remaining();
+                layout[3 + i * 3] = planes[i].getRowStride();
+                layout[4 + i * 3] = planes[i].getPixelStride();
+                layout[5 + i * 3] = length;
+                size += length;
+              }
+
+              final ByteBuffer buffer = bufferPool.acquire(size);
+              if (buffer == null) {
+                // Dart is still busy with the previous frames.
+                img.close();
+                return;
+              }
+              imageStreamLastFrameTimestamp = img.getTimestamp();
+              final Map<String, Object> layoutMap;
+              if (!Arrays.equals(layout, imageStreamLayout)) {
+                imageStreamLayout = layout.clone();
+                layoutMap = getImageStreamLayoutMap(layout);
+              } else {
+                layoutMap = null;
+              }
+              for (Image.Plane plane : planes) {
+                buffer.put(plane.getBuffer());
+              }
               img.close();
+              stats.onImageStreamFrameDelivered();
+
+              mainHandler.post(
+                  new Runnable() {
+                    @Override
+                    public void run() {
+                      if (layoutMap != null) {
+                        eventSink.success(layoutMap);
+                      }
+                      // The messenger sends the bytes up to the buffer position.
+                      messenger.send(
+                          IMAGE_STREAM_FRAMES_CHANNEL,
+                          buffer,
+                          new BinaryMessenger.BinaryReply() {
+                            @Override
+                            public void reply(ByteBuffer reply) {
+                              bufferPool.release(buffer);
+                            }
+                          });
+                    }
+                  });
             }
           },
-          null);
+          cameraHandler);
     }
 
-    private void sendErrorEvent(String errorDescription) {
-      if (eventSink != null) {
-        Map<String, String> event = new HashMap<>();
-        event.put("eventType", "error");
-        event.put("errorDescription", errorDescription);
-        eventSink.success(event);
+    private Map<String, Object> getImageStreamLayoutMap(int[] layout) {
+      List<Map<String, Object>> planes = new ArrayList<>();
+      for (int i = 3; i < layout.length; i += 3) {
+        Map<String, Object> plane = new HashMap<>();
+        plane.put("bytesPerRow", layout[i]);
+        plane.put("bytesPerPixel", layout[i + 1]);
+        plane.put("length", layout[i + 2]);
+        planes.add(plane);
       }
+
+      Map<String, Object> imageLayout = new HashMap<>();
+      imageLayout.put("width", layout[0]);
+      imageLayout.put("height", layout[1]);
+      imageLayout.put("format", layout[2]);
+      imageLayout.put("planes", planes);
+      return imageLayout;
+    }
+
+    private void sendErrorEvent(String errorDescription) {
+      Map<String, String> event = new HashMap<>();
+      event.put("eventType", "error");
+      event.put("errorDescription", errorDescription);
+      sendEvent(event);
+    }
+
+    // Can be called from any thread.
+    private void sendEvent(final Map<String, String> event) {
+      mainHandler.post(
+          new Runnable() {
+            @Override
+            public void run() {
+              if (eventSink != null) {
+                eventSink.success(event);
+              }
+            }
+          });
     }
 
     private void closeCaptureSession() {
+      recorderSurfaceConfigured = false;
       if (cameraCaptureSession != null) {
         cameraCaptureSession.close();
         cameraCaptureSession = null;
@@ -869,19 +1975,56 @@ public class CameraPlugin implements MethodCallHandler {
         cameraDevice.close();
         cameraDevice = null;
       }
-      if (pictureImageReader != null) {
-        pictureImageReader.close();
-        pictureImageReader = null;
-      }
-      if (imageStreamReader != null) {
-        imageStreamReader.close();
-        imageStreamReader = null;
-      }
       if (mediaRecorder != null) {
         mediaRecorder.reset();
         mediaRecorder.release();
         mediaRecorder = null;
       }
+      releaseRecorderSurface();
+      if (pictureBurst != null) {
+        pictureBurst.fail("cameraClosed", "The camera was closed during the burst.");
+      }
+      final ImageReader closingPictureImageReader = pictureImageReader;
+      final ImageReader closingImageStreamReader = imageStreamReader;
+      pictureImageReader = null;
+      imageStreamReader = null;
+      if (cameraThread == null) {
+        if (closingPictureImageReader != null) {
+          closingPictureImageReader.close();
+        }
+        if (closingImageStreamReader != null) {
+          closingImageStreamReader.close();
+        }
+        return;
+      }
+      // The readers are closed after the pending image callbacks and picture writes using them,
+      // waiting for the writes on the camera thread.
+      final HandlerThread closingCameraThread = cameraThread;
+      final ExecutorService closingJpegExecutor = jpegExecutor;
+      cameraThread = null;
+      cameraHandler = null;
+      jpegExecutor = null;
+      new Handler(closingCameraThread.getLooper())
+          .post(
+              new Runnable() {
+                @Override
+                public void run() {
+                  if (closingImageStreamReader != null) {
+                    closingImageStreamReader.close();
+                  }
+                  closingJpegExecutor.shutdown();
+                  try {
+                    closingJpegExecutor.awaitTermination(
+                        PICTURE_WRITE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                  } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                  }
+                  if (closingPictureImageReader != null) {
+                    closingPictureImageReader.close();
+                  }
+                  closingCameraThread.quitSafely();
+                }
+              });
     }
 
     private void dispose() {
@@ -890,11 +2033,7 @@ public class CameraPlugin implements MethodCallHandler {
     }
 
     private int getMediaOrientation() {
-      final int sensorOrientationOffset =
-          (currentOrientation == ORIENTATION_UNKNOWN)
-              ? 0
-              : (isFrontFacing) ? -currentOrientation : currentOrientation;
-      return (sensorOrientationOffset + sensorOrientation + 360) % 360;
+      return computeMediaOrientation(sensorOrientation, isFrontFacing);
     }
   }
 }
@@ -0,0 +1,82 @@
+package io.flutter.plugins.camera;
+
+import android.os.Build;
+import android.os.SystemClock;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Timings and image stream frame counts of a camera, sent to dart by getStats.
+ *
+ * <p>Updated from the camera thread and the picture writers, read on the platform thread. Latencies
+ * are in milliseconds, -1 until measured.
+ */
+class CameraStats {
+  private long openStartTime;
+  private long openLatency = -1;
+  private long firstFrameLatency = -1;
+  private int pictureCount;
+  private long lastPictureLatency = -1;
+  private long totalPictureLatency;
+  // Captures completed for the image stream requests.
+  private long imageStreamFramesProduced;
+  // Images returned by acquireLatestImage, the others were dropped by the reader.
+  private long imageStreamFramesAcquired;
+  // Frames sent to dart or analyzed, the others were skipped for max fps or while busy.
+  private long imageStreamFramesDelivered;
+
+  synchronized void onOpenStarted() {
+    openStartTime = SystemClock.elapsedRealtime();
+  }
+
+  synchronized void onOpened() {
+    openLatency = SystemClock.elapsedRealtime() - openStartTime;
+  }
+
+  synchronized boolean hasFirstFrame() {
+    return firstFrameLatency != -1;
+  }
+
+  // Time from the open to the first preview frame.
+  synchronized void onFirstFrame() {
+    if (firstFrameLatency == -1) {
+      firstFrameLatency = SystemClock.elapsedRealtime() - openStartTime;
+    }
+  }
+
+  /** Records a picture written, startTime is the elapsedRealtime of the takePicture call. */
+  synchronized void onPictureWritten(long startTime) {
+    lastPictureLatency = SystemClock.elapsedRealtime() - startTime;
+    totalPictureLatency += lastPictureLatency;
+    pictureCount++;
+  }
+
+  synchronized void onImageStreamFrameProduced() {
+    imageStreamFramesProduced++;
+  }
+
+  synchronized void onImageStreamFrameAcquired() {
+    imageStreamFramesAcquired++;
+  }
+
+  synchronized void onImageStreamFrameDelivered() {
+    imageStreamFramesDelivered++;
+  }
+
+  synchronized Map<String, Object> toMap() {
+    Map<String, Object> stats = new HashMap<>();
+    stats.put("deviceModel", Build.MANUFACTURER + " " + Build.MODEL);
+    stats.put("openLatency", openLatency);
+    stats.put("firstFrameLatency", firstFrameLatency);
+    stats.put("pictureCount", pictureCount);
+    stats.put("lastPictureLatency", lastPictureLatency);
+    stats.put("averagePictureLatency", pictureCount > 0 ? totalPictureLatency / pictureCount : -1);
+    stats.put("imageStreamFramesProduced", imageStreamFramesProduced);
+    stats.put("imageStreamFramesAcquired", imageStreamFramesAcquired);
+    stats.put("imageStreamFramesDelivered", imageStreamFramesDelivered);
+    stats.put(
+        "imageStreamFramesDropped",
+        Math.max(0, imageStreamFramesProduced - imageStreamFramesDelivered));
+    return stats;
+  }
+}
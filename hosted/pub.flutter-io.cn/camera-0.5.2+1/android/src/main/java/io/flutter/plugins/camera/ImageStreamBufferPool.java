@@ -0,0 +1,47 @@
+package io.flutter.plugins.camera;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A small pool of direct buffers holding image stream frames while they are sent to dart.
+ *
+ * <p>A buffer is acquired for each frame and released once dart acknowledged the frame. When all
+ * the buffers are in flight, {@link #acquire(int)} returns null and the frame should be dropped.
+ */
+class ImageStreamBufferPool {
+  private final int maxBufferCount;
+  private final List<ByteBuffer> freeBuffers = new ArrayList<>();
+  private int bufferCount;
+
+  ImageStreamBufferPool(int maxBufferCount) {
+    this.maxBufferCount = maxBufferCount;
+  }
+
+  /** Returns a cleared buffer of at least {@code size} bytes, or null if none is available. */
+  synchronized ByteBuffer acquire(int size) {
+    for (int i = 0; i < freeBuffers.size(); i++) {
+      ByteBuffer buffer = freeBuffers.get(i);
+      if (buffer.capacity() >= size) {
+        freeBuffers.remove(i);
+        buffer.clear();
+        return buffer;
+      }
+    }
+    if (bufferCount < maxBufferCount) {
+      bufferCount++;
+      return ByteBuffer.allocateDirect(size);
+    }
+    if (!freeBuffers.isEmpty()) {
+      // The frames got bigger, replace a buffer that is too small.
+      freeBuffers.remove(0);
+      return ByteBuffer.allocateDirect(size);
+    }
+    return null;
+  }
+
+  synchronized void release(ByteBuffer buffer) {
+    freeBuffers.add(buffer);
+  }
+}
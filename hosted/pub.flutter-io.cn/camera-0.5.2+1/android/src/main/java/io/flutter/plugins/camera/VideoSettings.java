@@ -0,0 +1,128 @@
+package io.flutter.plugins.camera;
+
+import android.media.CamcorderProfile;
+import android.media.MediaRecorder;
+import android.os.Build;
+import androidx.annotation.Nullable;
+import java.util.Map;
+
+/**
+ * Encoder settings of a video recording, sent by dart as the "videoSettings" argument of
+ * startVideoRecording.
+ *
+ * <p>Unset values use the {@link CamcorderProfile} of the resolution preset when
+ * "useCamcorderProfile" is true, the previous fixed defaults (H264 at 1 Mbps and 27 fps, AAC at 16
+ * kHz) otherwise.
+ */
+class VideoSettings {
+  private static final int DEFAULT_VIDEO_BIT_RATE = 1024 * 1000;
+  private static final int DEFAULT_VIDEO_FRAME_RATE = 27;
+  private static final int DEFAULT_AUDIO_SAMPLE_RATE = 16000;
+
+  boolean useCamcorderProfile;
+  @Nullable Integer videoBitRate;
+  @Nullable Integer videoFrameRate;
+  // "h264" or "hevc".
+  @Nullable String videoCodec;
+  @Nullable Integer audioBitRate;
+  @Nullable Integer audioSampleRate;
+  @Nullable Integer audioChannels;
+
+  static VideoSettings fromMap(@Nullable Map<String, Object> map) {
+    VideoSettings settings = new VideoSettings();
+    if (map != null) {
+      settings.useCamcorderProfile = Boolean.TRUE.equals(map.get("useCamcorderProfile"));
+      settings.videoBitRate = (Integer) map.get("videoBitRate");
+      settings.videoFrameRate = (Integer) map.get("videoFrameRate");
+      settings.videoCodec = (String) map.get("videoCodec");
+      settings.audioBitRate = (Integer) map.get("audioBitRate");
+      settings.audioSampleRate = (Integer) map.get("audioSampleRate");
+      settings.audioChannels = (Integer) map.get("audioChannels");
+    }
+    return settings;
+  }
+
+  // CamcorderProfile quality for a resolution preset, falling back to QUALITY_LOW.
+  static int getCamcorderProfileQuality(int cameraId, String resolutionPreset) {
+    int quality;
+    switch (resolutionPreset) {
+      case "high":
+        quality = CamcorderProfile.QUALITY_720P;
+        break;
+      case "medium":
+        quality = CamcorderProfile.QUALITY_480P;
+        break;
+      default:
+        quality = CamcorderProfile.QUALITY_LOW;
+    }
+    return CamcorderProfile.hasProfile(cameraId, quality) ? quality : CamcorderProfile.QUALITY_LOW;
+  }
+
+  /**
+   * Applies the encoder settings, from setOutputFormat to setVideoSize.
+   *
+   * @param profile used for the unset values, null to use the fixed defaults.
+   * @param videoWidth video size when there is no profile.
+   * @throws IllegalArgumentException if the codec is unknown or not available.
+   */
+  void apply(
+      MediaRecorder mediaRecorder,
+      @Nullable CamcorderProfile profile,
+      boolean enableAudio,
+      int videoWidth,
+      int videoHeight) {
+    mediaRecorder.setOutputFormat(
+        profile != null ? profile.fileFormat : MediaRecorder.OutputFormat.MPEG_4);
+    if (enableAudio) {
+      mediaRecorder.setAudioEncoder(
+          profile != null ? profile.audioCodec : MediaRecorder.AudioEncoder.AAC);
+    }
+    mediaRecorder.setVideoEncoder(getVideoEncoder(profile));
+    mediaRecorder.setVideoEncodingBitRate(
+        videoBitRate != null
+            ? videoBitRate
+            : profile != null ? profile.videoBitRate : DEFAULT_VIDEO_BIT_RATE);
+    if (enableAudio) {
+      mediaRecorder.setAudioSamplingRate(
+          audioSampleRate != null
+              ? audioSampleRate
+              : profile != null ? profile.audioSampleRate : DEFAULT_AUDIO_SAMPLE_RATE);
+      if (audioBitRate != null) {
+        mediaRecorder.setAudioEncodingBitRate(audioBitRate);
+      } else if (profile != null) {
+        mediaRecorder.setAudioEncodingBitRate(profile.audioBitRate);
+      }
+      if (audioChannels != null) {
+        mediaRecorder.setAudioChannels(audioChannels);
+      } else if (profile != null) {
+        mediaRecorder.setAudioChannels(profile.audioChannels);
+      }
+    }
+    mediaRecorder.setVideoFrameRate(
+        videoFrameRate != null
+            ? videoFrameRate
+            : profile != null ? profile.videoFrameRate : DEFAULT_VIDEO_FRAME_RATE);
+    if (profile != null) {
+      mediaRecorder.setVideoSize(profile.videoFrameWidth, profile.videoFrameHeight);
+    } else {
+      mediaRecorder.setVideoSize(videoWidth, videoHeight);
+    }
+  }
+
+  private int getVideoEncoder(@Nullable CamcorderProfile profile) {
+    if (videoCodec == null) {
+      return profile != null ? profile.videoCodec : MediaRecorder.VideoEncoder.H264;
+    }
+    switch (videoCodec) {
+      case "h264":
+        return MediaRecorder.VideoEncoder.H264;
+      case "hevc":
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N) {
+          throw new IllegalArgumentException("HEVC recording requires Android 7.0");
+        }
+        return MediaRecorder.VideoEncoder.HEVC;
+      default:
+        throw new IllegalArgumentException("Unknown video codec: " + videoCodec);
+    }
+  }
+}
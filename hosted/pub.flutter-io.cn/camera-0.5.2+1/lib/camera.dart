@@ -13,12 +13,23 @@ part 'camera_image.dart';
 
 final MethodChannel _channel = const MethodChannel('plugins.flutter.io/camera');
 
+// Frames of the image stream in zero copy mode (Android only).
+const String _imageStreamFramesChannel =
+    'plugins.flutter.io/camera/imageStreamFrames';
+// Frame handled acknowledgment when dropping frames while busy (Android only).
+const String _imageStreamAckChannel = 'plugins.flutter.io/camera/imageStreamAck';
+
 enum CameraLensDirection { front, back, external }
 
 enum ResolutionPreset { low, medium, high }
 
+/// Video codec of a recording, see [VideoSettings].
+enum VideoCodec { h264, hevc }
+
 typedef onLatestImageAvailable = Function(CameraImage image);
 
+typedef onImageAnalysisResult = Function(dynamic result);
+
 /// Returns the resolution preset as a String.
 String serializeResolutionPreset(ResolutionPreset resolutionPreset) {
   switch (resolutionPreset) {
@@ -63,6 +74,31 @@ Future<List<CameraDescription>> availableCameras() async {
   }
 }
 
+/// Android only: queries and caches the characteristics of the camera so that
+/// a later [CameraController.initialize] opens it faster. The sizes computed
+/// for [resolutionPreset] in the current orientation are cached as well when
+/// it is set.
+///
+/// [availableCameras] caches the characteristics of all the cameras as well.
+///
+/// May throw a [CameraException].
+Future<void> prewarmCamera(CameraDescription description,
+    {ResolutionPreset resolutionPreset}) async {
+  try {
+    await _channel.invokeMethod<void>(
+      'prewarmCamera',
+      <String, dynamic>{
+        'cameraName': description.name,
+        'resolutionPreset': resolutionPreset == null
+            ? null
+            : serializeResolutionPreset(resolutionPreset),
+      },
+    );
+  } on PlatformException catch (e) {
+    throw CameraException(e.code, e.message);
+  }
+}
+
 class CameraDescription {
   CameraDescription({this.name, this.lensDirection, this.sensorOrientation});
 
@@ -96,6 +132,51 @@ class CameraDescription {
   }
 }
 
+/// Android only: encoder settings of a video recording.
+///
+/// Unset values use the `CamcorderProfile` of the [ResolutionPreset] when
+/// [useCamcorderProfile] is true (including the video size), the default
+/// settings (H264 at 1 Mbps and 27 fps, AAC at 16 kHz) otherwise.
+class VideoSettings {
+  const VideoSettings({
+    this.useCamcorderProfile = false,
+    this.videoBitRate,
+    this.videoFrameRate,
+    this.videoCodec,
+    this.audioBitRate,
+    this.audioSampleRate,
+    this.audioChannels,
+  });
+
+  final bool useCamcorderProfile;
+
+  /// In bits per second.
+  final int videoBitRate;
+  final int videoFrameRate;
+
+  /// [VideoCodec.hevc] requires Android 7.0.
+  final VideoCodec videoCodec;
+
+  /// In bits per second.
+  final int audioBitRate;
+
+  /// In Hz.
+  final int audioSampleRate;
+  final int audioChannels;
+
+  Map<String, dynamic> toMap() => <String, dynamic>{
+        'useCamcorderProfile': useCamcorderProfile,
+        'videoBitRate': videoBitRate,
+        'videoFrameRate': videoFrameRate,
+        'videoCodec': videoCodec == null
+            ? null
+            : videoCodec == VideoCodec.hevc ? 'hevc' : 'h264',
+        'audioBitRate': audioBitRate,
+        'audioSampleRate': audioSampleRate,
+        'audioChannels': audioChannels,
+      };
+}
+
 /// This is thrown when the plugin reports an error.
 class CameraException implements Exception {
   CameraException(this.code, this.description);
@@ -207,6 +288,7 @@ class CameraController extends ValueNotifier<CameraValue> {
     this.description,
     this.resolutionPreset, {
     this.enableAudio = true,
+    this.keepAlive,
   }) : super(const CameraValue.uninitialized());
 
   final CameraDescription description;
@@ -215,6 +297,13 @@ class CameraController extends ValueNotifier<CameraValue> {
   /// Whether to include audio when recording a video.
   final bool enableAudio;
 
+  /// Android only: how long the camera stays open after [dispose].
+  ///
+  /// A controller initialized meanwhile with the same camera, resolution preset
+  /// and [enableAudio] reuses the open camera instead of opening it again.
+  /// When null, the camera is closed by [dispose].
+  final Duration keepAlive;
+
   int _textureId;
   bool _isDisposed = false;
   StreamSubscription<dynamic> _eventSubscription;
@@ -266,11 +355,24 @@ class CameraController extends ValueNotifier<CameraValue> {
   /// Preparing audio can cause a minor delay in the CameraPreview view on iOS.
   /// If video recording is intended, calling this early eliminates this delay
   /// that would otherwise be experienced when video recording is started.
-  /// This operation is a no-op on Android.
+  ///
+  /// On Android 6.0 and above, the preview session is configured once with a
+  /// persistent recorder surface so that [startVideoRecording] and
+  /// [stopVideoRecording] no longer reconfigure the session, avoiding a preview
+  /// freeze and the loss of the first frames. The recordings then use
+  /// [videoSettings] instead of the settings given to [startVideoRecording].
+  /// This operation is a no-op on older Android versions.
   ///
   /// Throws a [CameraException] if the prepare fails.
-  Future<void> prepareForVideoRecording() async {
-    await _channel.invokeMethod<void>('prepareForVideoRecording');
+  Future<void> prepareForVideoRecording({VideoSettings videoSettings}) async {
+    try {
+      await _channel.invokeMethod<void>(
+        'prepareForVideoRecording',
+        <String, dynamic>{'videoSettings': videoSettings?.toMap()},
+      );
+    } on PlatformException catch (e) {
+      throw CameraException(e.code, e.message);
+    }
   }
 
   /// Listen to events from the native plugins.
@@ -300,8 +402,10 @@ class CameraController extends ValueNotifier<CameraValue> {
   /// If a file already exists at the provided path an error will be thrown.
   /// The file can be read as this function returns.
   ///
+  /// [jpegQuality] (1 to 100) is only supported on Android.
+  ///
   /// Throws a [CameraException] if the capture fails.
-  Future<void> takePicture(String path) async {
+  Future<void> takePicture(String path, {int jpegQuality}) async {
     if (!value.isInitialized || _isDisposed) {
       throw CameraException(
         'Uninitialized CameraController.',
@@ -318,7 +422,61 @@ class CameraController extends ValueNotifier<CameraValue> {
       value = value.copyWith(isTakingPicture: true);
       await _channel.invokeMethod<void>(
         'takePicture',
-        <String, dynamic>{'textureId': _textureId, 'path': path},
+        <String, dynamic>{
+          'textureId': _textureId,
+          'path': path,
+          'jpegQuality': jpegQuality,
+        },
+      );
+      value = value.copyWith(isTakingPicture: false);
+    } on PlatformException catch (e) {
+      value = value.copyWith(isTakingPicture: false);
+      throw CameraException(e.code, e.message);
+    }
+  }
+
+  /// Android only: captures an image for each of [paths] in a single burst,
+  /// the files being written in the background while the next images are
+  /// captured.
+  ///
+  /// [jpegQuality] ranges from 1 to 100. [pictureSize] selects the smallest
+  /// size supported by the camera at least as big instead of the largest one,
+  /// it cannot be changed while streaming images or recording a video.
+  ///
+  /// All the files can be read as this function returns.
+  ///
+  /// Throws a [CameraException] if a capture or a write fails.
+  Future<void> takePictureBurst(List<String> paths,
+      {int jpegQuality, Size pictureSize}) async {
+    if (!value.isInitialized || _isDisposed) {
+      throw CameraException(
+        'Uninitialized CameraController.',
+        'takePictureBurst was called on uninitialized CameraController',
+      );
+    }
+    if (value.isTakingPicture) {
+      throw CameraException(
+        'Previous capture has not returned yet.',
+        'takePictureBurst was called before the previous capture returned.',
+      );
+    }
+    if (pictureSize != null && value.isStreamingImages) {
+      throw CameraException(
+        'A camera has started streaming images.',
+        'takePictureBurst was called with a pictureSize while streaming images.',
+      );
+    }
+    try {
+      value = value.copyWith(isTakingPicture: true);
+      await _channel.invokeMethod<void>(
+        'takePictureBurst',
+        <String, dynamic>{
+          'textureId': _textureId,
+          'paths': paths,
+          'jpegQuality': jpegQuality,
+          'width': pictureSize?.width?.round(),
+          'height': pictureSize?.height?.round(),
+        },
       );
       value = value.copyWith(isTakingPicture: false);
     } on PlatformException catch (e) {
@@ -337,10 +495,27 @@ class CameraController extends ValueNotifier<CameraValue> {
   /// have significant frame rate drops for [CameraPreview] on lower end
   /// devices.
   ///
+  /// On Android, [zeroCopy] sends the frames as raw bytes from a small pool of
+  /// native buffers instead of encoding each plane in a message. A frame is
+  /// dropped while the previous ones are being delivered, the buffer being
+  /// reused once [onAvailable] returns. It is ignored on iOS.
+  ///
+  /// The following options are only supported on Android:
+  ///
+  /// * [resolution]: the images use the smallest size supported by the camera
+  ///   at least as big as [resolution] instead of the preview size.
+  /// * [maxFps]: images are skipped natively to deliver at most [maxFps]
+  ///   images per second.
+  /// * [dropWhileBusy]: images are skipped natively until [onAvailable]
+  ///   returned for the previous one.
+  ///
   /// Throws a [CameraException] if image streaming or video recording has
   /// already started.
-  // TODO(bmparr): Add settings for resolution and fps.
-  Future<void> startImageStream(onLatestImageAvailable onAvailable) async {
+  Future<void> startImageStream(onLatestImageAvailable onAvailable,
+      {bool zeroCopy = false,
+      Size resolution,
+      double maxFps,
+      bool dropWhileBusy = false}) async {
     if (!value.isInitialized || _isDisposed) {
       throw CameraException(
         'Uninitialized CameraController',
@@ -361,21 +536,106 @@ class CameraController extends ValueNotifier<CameraValue> {
     }
 
     try {
-      await _channel.invokeMethod<void>('startImageStream');
+      await _channel.invokeMethod<void>(
+        'startImageStream',
+        <String, dynamic>{
+          'zeroCopy': zeroCopy,
+          'width': resolution?.width?.round(),
+          'height': resolution?.height?.round(),
+          'maxFps': maxFps,
+          'dropWhileBusy': dropWhileBusy,
+        },
+      );
       value = value.copyWith(isStreamingImages: true);
     } on PlatformException catch (e) {
       throw CameraException(e.code, e.message);
     }
     const EventChannel cameraEventChannel =
         EventChannel('plugins.flutter.io/camera/imageStream');
+    if (zeroCopy && defaultTargetPlatform == TargetPlatform.android) {
+      // The event channel only sends the layout of the frames when it changes.
+      Map<dynamic, dynamic> layout;
+      _imageStreamSubscription =
+          cameraEventChannel.receiveBroadcastStream().listen(
+        (dynamic imageLayout) {
+          layout = imageLayout;
+        },
+      );
+      BinaryMessages.setMessageHandler(_imageStreamFramesChannel,
+          (ByteData frame) async {
+        if (layout != null) {
+          onAvailable(CameraImage._fromPlatformBytes(layout, frame));
+        }
+        // Replying releases the native buffer.
+        return null;
+      });
+      return;
+    }
     _imageStreamSubscription =
         cameraEventChannel.receiveBroadcastStream().listen(
       (dynamic imageData) {
         onAvailable(CameraImage._fromPlatformData(imageData));
+        if (dropWhileBusy) {
+          BinaryMessages.send(_imageStreamAckChannel, null);
+        }
       },
     );
   }
 
+  /// Android only: run the native frame analyzer registered as [analyzer]
+  /// with `CameraPlugin.registerFrameAnalyzer` on the image stream.
+  ///
+  /// The frames are analyzed on a background thread and never sent to dart,
+  /// [onResult] is called with each non null result of the analyzer. Frames
+  /// arriving while the analyzer is busy are dropped. [resolution] and
+  /// [maxFps] are the same as for [startImageStream].
+  ///
+  /// Stop the analysis with [stopImageStream].
+  ///
+  /// Throws a [CameraException] if image streaming or video recording has
+  /// already started or if no analyzer is registered as [analyzer].
+  Future<void> startImageAnalysis(
+      String analyzer, onImageAnalysisResult onResult,
+      {Size resolution, double maxFps}) async {
+    if (!value.isInitialized || _isDisposed) {
+      throw CameraException(
+        'Uninitialized CameraController',
+        'startImageAnalysis was called on uninitialized CameraController.',
+      );
+    }
+    if (value.isRecordingVideo) {
+      throw CameraException(
+        'A video recording is already started.',
+        'startImageAnalysis was called while a video is being recorded.',
+      );
+    }
+    if (value.isStreamingImages) {
+      throw CameraException(
+        'A camera has started streaming images.',
+        'startImageAnalysis was called while a camera was streaming images.',
+      );
+    }
+
+    try {
+      await _channel.invokeMethod<void>(
+        'startImageStream',
+        <String, dynamic>{
+          'analyzer': analyzer,
+          'width': resolution?.width?.round(),
+          'height': resolution?.height?.round(),
+          'maxFps': maxFps,
+        },
+      );
+      value = value.copyWith(isStreamingImages: true);
+    } on PlatformException catch (e) {
+      throw CameraException(e.code, e.message);
+    }
+    const EventChannel cameraEventChannel =
+        EventChannel('plugins.flutter.io/camera/imageStream');
+    _imageStreamSubscription =
+        cameraEventChannel.receiveBroadcastStream().listen(onResult);
+  }
+
   /// Stop streaming images from platform camera.
   ///
   /// Throws a [CameraException] if image streaming was not started or video
@@ -409,6 +669,7 @@ class CameraController extends ValueNotifier<CameraValue> {
 
     _imageStreamSubscription.cancel();
     _imageStreamSubscription = null;
+    BinaryMessages.setMessageHandler(_imageStreamFramesChannel, null);
   }
 
   /// Start a video recording and save the file to [path].
@@ -420,8 +681,11 @@ class CameraController extends ValueNotifier<CameraValue> {
   /// If a file already exists at the provided path an error will be thrown.
   /// The file can be read as soon as [stopVideoRecording] returns.
   ///
+  /// [videoSettings] is only supported on Android.
+  ///
   /// Throws a [CameraException] if the capture fails.
-  Future<void> startVideoRecording(String filePath) async {
+  Future<void> startVideoRecording(String filePath,
+      {VideoSettings videoSettings}) async {
     if (!value.isInitialized || _isDisposed) {
       throw CameraException(
         'Uninitialized CameraController',
@@ -444,7 +708,11 @@ class CameraController extends ValueNotifier<CameraValue> {
     try {
       await _channel.invokeMethod<void>(
         'startVideoRecording',
-        <String, dynamic>{'textureId': _textureId, 'filePath': filePath},
+        <String, dynamic>{
+          'textureId': _textureId,
+          'filePath': filePath,
+          'videoSettings': videoSettings?.toMap(),
+        },
       );
       value = value.copyWith(isRecordingVideo: true);
     } on PlatformException catch (e) {
@@ -477,6 +745,44 @@ class CameraController extends ValueNotifier<CameraValue> {
     }
   }
 
+  /// Android only: timings and frame counts of the camera, to track the
+  /// capture pipeline performance per device model.
+  ///
+  /// The map contains:
+  ///  * `deviceModel`: the manufacturer and model of the device.
+  ///  * `openLatency`: time from opening the camera to the camera being open.
+  ///  * `firstFrameLatency`: time from opening the camera to the first preview
+  ///    frame.
+  ///  * `pictureCount`, `lastPictureLatency` and `averagePictureLatency`: the
+  ///    pictures taken with [takePicture] and the time from the call to the
+  ///    file being written.
+  ///  * `imageStreamFramesProduced`: frames captured for the image stream.
+  ///  * `imageStreamFramesAcquired`: frames read from the camera, the others
+  ///    were replaced by a newer frame before being read.
+  ///  * `imageStreamFramesDelivered`: frames sent to dart or analyzed, the
+  ///    others were skipped for `maxFps` or while busy.
+  ///  * `imageStreamFramesDropped`: produced frames not delivered.
+  ///
+  /// Times are in milliseconds, -1 until measured.
+  ///
+  /// Throws a [CameraException] if the stats cannot be read.
+  Future<Map<String, dynamic>> getStats() async {
+    if (!value.isInitialized || _isDisposed) {
+      throw CameraException(
+        'Uninitialized CameraController',
+        'getStats was called on uninitialized CameraController',
+      );
+    }
+    try {
+      return await _channel.invokeMapMethod<String, dynamic>(
+        'getStats',
+        <String, dynamic>{'textureId': _textureId},
+      );
+    } on PlatformException catch (e) {
+      throw CameraException(e.code, e.message);
+    }
+  }
+
   /// Releases the resources of this camera.
   @override
   Future<void> dispose() async {
@@ -487,11 +793,16 @@ class CameraController extends ValueNotifier<CameraValue> {
     super.dispose();
     if (_creatingCompleter != null) {
       await _creatingCompleter.future;
+      // Cancelled first as a camera kept alive sends its events on the same
+      // channel to the next controller.
+      await _eventSubscription?.cancel();
       await _channel.invokeMethod<void>(
         'dispose',
-        <String, dynamic>{'textureId': _textureId},
+        <String, dynamic>{
+          'textureId': _textureId,
+          'keepAliveMillis': keepAlive?.inMilliseconds,
+        },
       );
-      await _eventSubscription?.cancel();
     }
   }
 }
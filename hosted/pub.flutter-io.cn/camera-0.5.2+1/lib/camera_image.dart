@@ -16,6 +16,12 @@ class Plane {
         height = data['height'],
         width = data['width'];
 
+  Plane._fromPlatformLayout(Map<dynamic, dynamic> layout, this.bytes)
+      : bytesPerPixel = layout['bytesPerPixel'],
+        bytesPerRow = layout['bytesPerRow'],
+        height = null,
+        width = null;
+
   /// Bytes representing this plane.
   final Uint8List bytes;
 
@@ -120,6 +126,27 @@ class CameraImage {
         planes = List<Plane>.unmodifiable(data['planes']
             .map((dynamic planeData) => Plane._fromPlatformData(planeData)));
 
+  // The planes are views on the frame bytes, one after the other as described
+  // by the layout.
+  CameraImage._fromPlatformBytes(Map<dynamic, dynamic> layout, ByteData frame)
+      : format = ImageFormat._fromPlatformData(layout['format']),
+        height = layout['height'],
+        width = layout['width'],
+        planes = List<Plane>.unmodifiable(
+            _planeViews(layout['planes'], frame));
+
+  static List<Plane> _planeViews(List<dynamic> planeLayouts, ByteData frame) {
+    final List<Plane> planes = <Plane>[];
+    int offset = frame.offsetInBytes;
+    for (dynamic planeLayout in planeLayouts) {
+      final int length = planeLayout['length'];
+      planes.add(Plane._fromPlatformLayout(
+          planeLayout, frame.buffer.asUint8List(offset, length)));
+      offset += length;
+    }
+    return planes;
+  }
+
   /// Format of the image provided.
   ///
   /// Determines the number of planes needed to represent the image, and
@@ -0,0 +1,40 @@
+package com.vitanov.multiimagepicker;
+
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Bounded thread pool decoding the thumbnails, the original images keep the serial
+ * {@code AsyncTask} executor.
+ * <p>
+ * Pending tasks run last in first out: when scrolling a grid, the images requested last
+ * are the visible ones. Cancelled tasks are dropped from the queue by {@link #purge()}.
+ */
+class DecodeExecutor extends ThreadPoolExecutor {
+
+    DecodeExecutor(int threadCount) {
+        super(threadCount, threadCount, 1, TimeUnit.SECONDS, new LifoBlockingDeque());
+        allowCoreThreadTimeOut(true);
+    }
+
+    private static class LifoBlockingDeque extends LinkedBlockingDeque<Runnable> {
+
+        @Override
+        public boolean offer(Runnable runnable) {
+            return offerFirst(runnable);
+        }
+
+        @Override
+        public boolean add(Runnable runnable) {
+            addFirst(runnable);
+            return true;
+        }
+
+        @Override
+        public void put(Runnable runnable) throws InterruptedException {
+            putFirst(runnable);
+        }
+    }
+}
@@ -73,6 +73,7 @@ public class MultiImagePickerPlugin implements
 
     private static final String CHANNEL_NAME = "multi_image_picker";
     private static final String REQUEST_THUMBNAIL = "requestThumbnail";
+    private static final String CANCEL_THUMBNAIL = "cancelThumbnail";
     private static final String REQUEST_ORIGINAL = "requestOriginal";
     private static final String REQUEST_METADATA = "requestMetadata";
     private static final String PICK_IMAGES = "pickImages";
@@ -84,18 +85,24 @@ public class MultiImagePickerPlugin implements
     private static final String ANDROID_OPTIONS = "androidOptions";
     private static final int REQUEST_CODE_CHOOSE = 1001;
     private static final int REQUEST_CODE_GRANT_PERMISSIONS = 2001;
+    // Decodes the thumbnails, most recent first, instead of the serial AsyncTask executor
+    private static final DecodeExecutor decodeExecutor = new DecodeExecutor(Runtime.getRuntime().availableProcessors());
     private final MethodChannel channel;
     private final Activity activity;
     private final Context context;
     private final BinaryMessenger messenger;
     private Result pendingResult;
     private MethodCall methodCall;
+    // Thumbnail tasks not completed yet by identifier, only used on the main thread
+    private final HashMap<String, List<GetThumbnailTask>> thumbnailTasks = new HashMap<>();
+    private final ThumbnailCache thumbnailCache;
 
     private MultiImagePickerPlugin(Activity activity, Context context, MethodChannel channel, BinaryMessenger messenger) {
         this.activity = activity;
         this.context = context;
         this.channel = channel;
         this.messenger = messenger;
+        this.thumbnailCache = new ThumbnailCache(context.getCacheDir(), (int) (Runtime.getRuntime().maxMemory() / 32));
     }
 
     @Override
@@ -143,14 +150,18 @@ public class MultiImagePickerPlugin implements
     private static class GetThumbnailTask extends AsyncTask<String, Void, ByteBuffer> {
         private WeakReference<Activity> activityReference;
         BinaryMessenger messenger;
+        final HashMap<String, List<GetThumbnailTask>> tasks;
+        final ThumbnailCache cache;
         final String identifier;
         final int width;
         final int height;
         final int quality;
 
-        GetThumbnailTask(Activity context, BinaryMessenger messenger, String identifier, int width, int height, int quality) {
+        GetThumbnailTask(Activity context, BinaryMessenger messenger, HashMap<String, List<GetThumbnailTask>> tasks, ThumbnailCache cache, String identifier, int width, int height, int quality) {
             super();
             this.messenger = messenger;
+            this.tasks = tasks;
+            this.cache = cache;
             this.identifier = identifier;
             this.width = width;
             this.height = height;
@@ -168,38 +179,74 @@ public class MultiImagePickerPlugin implements
                 Activity activity = activityReference.get();
                 if (activity == null || activity.isFinishing()) return null;
 
-                Bitmap sourceBitmap = getCorrectlyOrientedImage(activity, uri);
+                final String cacheKey = ThumbnailCache.getKey(this.identifier, getDateModified(activity, uri), this.width, this.height, this.quality);
+                if (cacheKey != null) {
+                    byteArray = cache.get(cacheKey);
+                }
+                if (byteArray != null) {
+                    return toBuffer(byteArray);
+                }
+
+                // Subsampled, the full resolution image is never decoded
+                Bitmap sourceBitmap = ThumbnailDecoder.decode(activity, uri, getOrientation(activity, uri), this.width, this.height);
+                if (sourceBitmap == null) return null;
                 Bitmap bitmap = ThumbnailUtils.extractThumbnail(sourceBitmap, this.width, this.height, OPTIONS_RECYCLE_INPUT);
 
                 if (bitmap == null) return null;
+                if (isCancelled()) {
+                    bitmap.recycle();
+                    return null;
+                }
 
                 ByteArrayOutputStream bitmapStream = new ByteArrayOutputStream();
                 bitmap.compress(Bitmap.CompressFormat.JPEG, this.quality, bitmapStream);
                 byteArray = bitmapStream.toByteArray();
                 bitmap.recycle();
                 bitmapStream.close();
+                if (cacheKey != null) {
+                    cache.put(cacheKey, byteArray);
+                }
             } catch (IOException e) {
                 e.printStackTrace();
             }
 
-
-            final ByteBuffer buffer;
             if (byteArray != null) {
-                buffer = ByteBuffer.allocateDirect(byteArray.length);
-                buffer.put(byteArray);
-                return buffer;
+                return toBuffer(byteArray);
             }
             return null;
         }
 
+        private static ByteBuffer toBuffer(byte[] byteArray) {
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(byteArray.length);
+            buffer.put(byteArray);
+            return buffer;
+        }
+
         @Override
         protected void onPostExecute(ByteBuffer buffer) {
             super.onPostExecute(buffer);
+            removeTask();
             if (buffer != null) {
                 this.messenger.send("multi_image_picker/image/" + this.identifier + ".thumb", buffer);
                 buffer.clear();
             }
         }
+
+        @Override
+        protected void onCancelled(ByteBuffer buffer) {
+            super.onCancelled(buffer);
+            removeTask();
+        }
+
+        private void removeTask() {
+            List<GetThumbnailTask> identifierTasks = tasks.get(identifier);
+            if (identifierTasks != null) {
+                identifierTasks.remove(this);
+                if (identifierTasks.isEmpty()) {
+                    tasks.remove(identifier);
+                }
+            }
+        }
     }
 
     private static void deleteMedia(Context context, ArrayList<File> files) {
@@ -335,6 +382,7 @@ public class MultiImagePickerPlugin implements
             final String identifier = call.argument("identifier");
             final int quality = (int) call.argument("quality");
             GetImageTask task = new GetImageTask(this.activity, this.messenger, identifier, quality);
+            // Serially in request order, the full size decodes would delay the thumbnails
             task.execute();
             finishWithSuccess();
 
@@ -343,8 +391,25 @@ public class MultiImagePickerPlugin implements
             final int width = (int) call.argument("width");
             final int height = (int) call.argument("height");
             final int quality = (int) call.argument("quality");
-            GetThumbnailTask task = new GetThumbnailTask(this.activity, this.messenger, identifier, width, height, quality);
-            task.execute();
+            GetThumbnailTask task = new GetThumbnailTask(this.activity, this.messenger, thumbnailTasks, thumbnailCache, identifier, width, height, quality);
+            List<GetThumbnailTask> identifierTasks = thumbnailTasks.get(identifier);
+            if (identifierTasks == null) {
+                identifierTasks = new ArrayList<>();
+                thumbnailTasks.put(identifier, identifierTasks);
+            }
+            identifierTasks.add(task);
+            task.executeOnExecutor(decodeExecutor);
+            finishWithSuccess();
+        } else if (CANCEL_THUMBNAIL.equals(call.method)) {
+            final String identifier = call.argument("identifier");
+            List<GetThumbnailTask> identifierTasks = thumbnailTasks.remove(identifier);
+            if (identifierTasks != null) {
+                // Tasks already decoding complete without sending their thumbnail
+                for (GetThumbnailTask task : identifierTasks) {
+                    task.cancel(false);
+                }
+                decodeExecutor.purge();
+            }
             finishWithSuccess();
         } else if (REQUEST_METADATA.equals(call.method)) {
             final String identifier = call.argument("identifier");
@@ -835,6 +900,22 @@ public class MultiImagePickerPlugin implements
         return -1;
     }
 
+    private static long getDateModified(Context context, Uri photoUri) {
+        try (Cursor cursor = context.getContentResolver().query(photoUri,
+                new String[]{MediaStore.MediaColumns.DATE_MODIFIED}, null, null, null)) {
+
+            if (cursor == null || cursor.getCount() != 1) {
+                return -1;
+            }
+
+            cursor.moveToFirst();
+            return cursor.isNull(0) ? -1 : cursor.getLong(0);
+        } catch (CursorIndexOutOfBoundsException | IllegalArgumentException ignored) {
+
+        }
+        return -1;
+    }
+
     private static Bitmap getCorrectlyOrientedImage(Context context, Uri photoUri) throws IOException {
         InputStream is = context.getContentResolver().openInputStream(photoUri);
         BitmapFactory.Options dbo = new BitmapFactory.Options();
@@ -0,0 +1,186 @@
+package com.vitanov.multiimagepicker;
+
+import android.util.LruCache;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+
+/**
+ * Two level cache of the encoded thumbnails: an LRU of JPEG bytes in memory, backed by files
+ * in the app cache directory surviving restarts.
+ * <p>
+ * The keys include the modification date of the image, a modified image gets new keys and
+ * its previous thumbnails are evicted like unused ones. Used from the decode threads.
+ */
+class ThumbnailCache {
+
+    private static final String DIRECTORY_NAME = "multi_image_picker_thumbnails";
+    private static final long DISK_MAX_SIZE = 50 * 1024 * 1024;
+
+    private final LruCache<String, byte[]> memoryCache;
+    private final File directory;
+    // Total size of the files in directory, -1 until computed
+    private long diskSize = -1;
+
+    /**
+     * @param cacheDir The app cache directory.
+     * @param memoryMaxSize The byte budget of the memory cache.
+     */
+    ThumbnailCache(File cacheDir, int memoryMaxSize) {
+        this.directory = new File(cacheDir, DIRECTORY_NAME);
+        this.memoryCache = new LruCache<String, byte[]>(memoryMaxSize) {
+            @Override
+            protected int sizeOf(String key, byte[] bytes) {
+                return bytes.length;
+            }
+        };
+    }
+
+    /**
+     * @param dateModified The MediaStore modification date of the image, -1 if unknown.
+     * @return The key of the thumbnail, null if it cannot be cached.
+     */
+    static String getKey(String identifier, long dateModified, int width, int height, int quality) {
+        if (dateModified == -1) {
+            // Changes could not be detected
+            return null;
+        }
+        return identifier + "|" + dateModified + "|" + width + "x" + height + "|" + quality;
+    }
+
+    /**
+     * @return The thumbnail bytes from memory or disk, null if not cached.
+     */
+    byte[] get(String key) {
+        byte[] bytes = memoryCache.get(key);
+        if (bytes != null) {
+            return bytes;
+        }
+        synchronized (this) {
+            File file = getFile(key);
+            if (!file.exists()) {
+                return null;
+            }
+            try {
+                bytes = readFile(file);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return null;
+            }
+            // Most recently used, trimmed last
+            //noinspection ResultOfMethodCallIgnored
+            file.setLastModified(System.currentTimeMillis());
+        }
+        memoryCache.put(key, bytes);
+        return bytes;
+    }
+
+    void put(String key, byte[] bytes) {
+        memoryCache.put(key, bytes);
+        synchronized (this) {
+            if (!directory.exists() && !directory.mkdirs()) {
+                return;
+            }
+            File file = getFile(key);
+            // Written aside so that a partial file is never read
+            File tempFile = new File(directory, file.getName() + ".tmp");
+            try {
+                try (OutputStream out = new FileOutputStream(tempFile)) {
+                    out.write(bytes);
+                }
+                long previousLength = file.length();
+                if (!tempFile.renameTo(file)) {
+                    //noinspection ResultOfMethodCallIgnored
+                    tempFile.delete();
+                    return;
+                }
+                if (diskSize == -1) {
+                    diskSize = getDirectorySize();
+                } else {
+                    diskSize += bytes.length - previousLength;
+                }
+                if (diskSize > DISK_MAX_SIZE) {
+                    trimDisk();
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                //noinspection ResultOfMethodCallIgnored
+                tempFile.delete();
+            }
+        }
+    }
+
+    // Deletes the least recently used files down to 3/4 of the max size
+    private void trimDisk() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File lhs, File rhs) {
+                return Long.compare(lhs.lastModified(), rhs.lastModified());
+            }
+        });
+        for (File file : files) {
+            if (diskSize <= DISK_MAX_SIZE * 3 / 4) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                diskSize -= length;
+            }
+        }
+    }
+
+    private long getDirectorySize() {
+        long size = 0;
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                size += file.length();
+            }
+        }
+        return size;
+    }
+
+    // Identifiers are content uris, hashed to get a valid file name
+    private File getFile(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(key.getBytes(Charset.forName("UTF-8")));
+            StringBuilder name = new StringBuilder();
+            for (byte b : hash) {
+                name.append(String.format("%02x", b));
+            }
+            return new File(directory, name.toString());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] readFile(File file) throws IOException {
+        byte[] bytes = new byte[(int) file.length()];
+        try (InputStream in = new FileInputStream(file)) {
+            int offset = 0;
+            while (offset < bytes.length) {
+                int count = in.read(bytes, offset, bytes.length - offset);
+                if (count < 0) {
+                    throw new IOException("Unexpected end of " + file);
+                }
+                offset += count;
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,130 @@
+package com.vitanov.multiimagepicker;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.net.Uri;
+import android.os.Build;
+import android.util.Size;
+
+import androidx.exifinterface.media.ExifInterface;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+
+/**
+ * Decodes thumbnails without decoding the image at full resolution.
+ */
+class ThumbnailDecoder {
+
+    // EXIF thumbnails are usually 160x120 or 320x240, not worth reading for bigger thumbnails.
+    private static final int EXIF_THUMBNAIL_MAX_SIZE = 512;
+
+    /**
+     * Decode a correctly oriented bitmap at least as big as the requested size, to be cropped
+     * to that size. In order of preference it is the MediaStore thumbnail (Android 10+),
+     * the thumbnail embedded in the EXIF data when big enough, or the image decoded with
+     * the largest inSampleSize keeping it big enough.
+     *
+     * @param context The context.
+     * @param uri The image Uri.
+     * @param orientation The rotation of the image in degrees, -1 if unknown.
+     * @param width The requested width of the oriented thumbnail.
+     * @param height The requested height of the oriented thumbnail.
+     * @return The bitmap, null if the image could not be decoded.
+     */
+    static Bitmap decode(Context context, Uri uri, int orientation, int width, int height) throws IOException {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && width > 0 && height > 0) {
+            try {
+                return context.getContentResolver().loadThumbnail(uri, new Size(width, height), null);
+            } catch (IOException e) {
+                // Not a MediaStore image, decode it below.
+            }
+        }
+
+        // The decoded images are not rotated yet.
+        final boolean swapSize = orientation == 90 || orientation == 270;
+        final int decodeWidth = swapSize ? height : width;
+        final int decodeHeight = swapSize ? width : height;
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        try (InputStream is = context.getContentResolver().openInputStream(uri)) {
+            BitmapFactory.decodeStream(is, null, options);
+        }
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+
+        Bitmap bitmap = null;
+        if (Math.max(width, height) <= EXIF_THUMBNAIL_MAX_SIZE) {
+            bitmap = decodeExifThumbnail(context, uri, options.outWidth, options.outHeight, decodeWidth, decodeHeight);
+        }
+        if (bitmap == null) {
+            options.inJustDecodeBounds = false;
+            options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, decodeWidth, decodeHeight);
+            try (InputStream is = context.getContentResolver().openInputStream(uri)) {
+                bitmap = BitmapFactory.decodeStream(is, null, options);
+            }
+        }
+        if (bitmap == null || orientation <= 0) {
+            return bitmap;
+        }
+
+        Matrix matrix = new Matrix();
+        matrix.postRotate(orientation);
+        Bitmap rotatedBitmap = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(),
+                bitmap.getHeight(), matrix, true);
+        if (rotatedBitmap != bitmap) {
+            bitmap.recycle();
+        }
+        return rotatedBitmap;
+    }
+
+    /**
+     * @return The largest power of 2 keeping the subsampled image at least width x height.
+     */
+    static int calculateInSampleSize(int sourceWidth, int sourceHeight, int width, int height) {
+        int inSampleSize = 1;
+        if (width <= 0 || height <= 0) {
+            return inSampleSize;
+        }
+        while (sourceWidth / (inSampleSize * 2) >= width
+                && sourceHeight / (inSampleSize * 2) >= height) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    /**
+     * @return The EXIF thumbnail if it is at least width x height and has the aspect ratio
+     * of the image (some cameras add black bars), null otherwise.
+     */
+    private static Bitmap decodeExifThumbnail(Context context, Uri uri, int sourceWidth, int sourceHeight,
+                                              int width, int height) throws IOException {
+        Bitmap thumbnail;
+        try (InputStream is = context.getContentResolver().openInputStream(uri)) {
+            if (is == null) {
+                return null;
+            }
+            ExifInterface exifInterface = new ExifInterface(is);
+            if (!exifInterface.hasThumbnail()) {
+                return null;
+            }
+            thumbnail = exifInterface.getThumbnailBitmap();
+        }
+        if (thumbnail == null) {
+            return null;
+        }
+        final float aspectRatio = (float) sourceWidth / sourceHeight;
+        final float thumbnailAspectRatio = (float) thumbnail.getWidth() / thumbnail.getHeight();
+        if (thumbnail.getWidth() < width || thumbnail.getHeight() < height
+                || Math.abs(aspectRatio - thumbnailAspectRatio) > 0.01f * aspectRatio) {
+            thumbnail.recycle();
+            return null;
+        }
+        return thumbnail;
+    }
+}
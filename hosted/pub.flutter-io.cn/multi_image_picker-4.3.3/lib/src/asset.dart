@@ -16,6 +16,9 @@ class Asset {
   /// Original image height
   int _originalHeight;
 
+  /// The pending thumbnail request, if any
+  Completer<ByteData> _thumbCompleter;
+
   Asset(
     this._identifier,
     this._name,
@@ -93,7 +96,9 @@ class Asset {
     }
 
     Completer completer = new Completer<ByteData>();
+    _thumbCompleter = completer;
     BinaryMessages.setMessageHandler(_thumbChannel, (ByteData message) {
+      _thumbCompleter = null;
       completer.complete(message);
       BinaryMessages.setMessageHandler(_thumbChannel, null);
     });
@@ -102,6 +107,22 @@ class Asset {
     return completer.future;
   }
 
+  /// Cancels the pending thumbnail requests of this asset, for example
+  /// when its thumb is scrolled out of view.
+  ///
+  /// On Android, the requests not decoded yet are dropped. The future
+  /// returned by [requestThumbnail] completes with null.
+  Future<void> cancelThumbnail() async {
+    if (_thumbCompleter == null) {
+      return;
+    }
+    Completer<ByteData> completer = _thumbCompleter;
+    _thumbCompleter = null;
+    BinaryMessages.setMessageHandler(_thumbChannel, null);
+    completer.complete(null);
+    await MultiImagePicker.cancelThumbnail(_identifier);
+  }
+
   /// Requests the original image for that asset.
   ///
   /// You can also pass the optional parameter [quality] to reduce the quality
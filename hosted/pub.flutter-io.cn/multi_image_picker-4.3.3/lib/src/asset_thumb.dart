@@ -56,11 +56,19 @@ class _AssetThumbState extends State<AssetThumb> {
   @override
   void didUpdateWidget(AssetThumb oldWidget) {
     if (oldWidget.asset.identifier != widget.asset.identifier) {
+      oldWidget.asset.cancelThumbnail();
       this._loadThumb();
     }
     super.didUpdateWidget(oldWidget);
   }
 
+  @override
+  void dispose() {
+    // Drop the request if the thumb is scrolled away before it is loaded
+    asset.cancelThumbnail();
+    super.dispose();
+  }
+
   void _loadThumb() async {
     setState(() {
       _thumbData = null;
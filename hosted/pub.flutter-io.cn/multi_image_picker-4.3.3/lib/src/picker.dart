@@ -105,6 +105,25 @@ class MultiImagePicker {
     return ret;
   }
 
+  /// Cancels the thumbnail requests for a given [identifier].
+  ///
+  /// This method is used by the asset class, you
+  /// should not invoke it manually. For more info
+  /// refer to [Asset] class docs.
+  ///
+  /// Only supported on Android, does nothing on iOS.
+  static Future<bool> cancelThumbnail(String identifier) async {
+    assert(identifier != null);
+
+    try {
+      bool ret = await _channel.invokeMethod(
+          "cancelThumbnail", <String, dynamic>{"identifier": identifier});
+      return ret;
+    } on MissingPluginException {
+      return false;
+    }
+  }
+
   /// Requests the original image data for a given
   /// [identifier].
   ///
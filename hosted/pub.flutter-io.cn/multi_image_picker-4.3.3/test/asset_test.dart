@@ -87,5 +87,28 @@ void main() {
         equals(true),
       );
     });
+
+    test('cancelThumbnail completes the pending request with null', () async {
+      Asset asset = Asset('_identifier', 'some name', 50, 50);
+
+      Future<ByteData> thumbData = asset.requestThumbnail(10, 10);
+      await asset.cancelThumbnail();
+
+      expect(await thumbData, isNull);
+      expect(
+        log.last,
+        isMethodCall('cancelThumbnail', arguments: <String, dynamic>{
+          'identifier': '_identifier',
+        }),
+      );
+    });
+
+    test('cancelThumbnail does nothing without a pending request', () async {
+      Asset asset = Asset('_identifier', 'some name', 50, 50);
+
+      await asset.cancelThumbnail();
+
+      expect(log, isEmpty);
+    });
   });
 }
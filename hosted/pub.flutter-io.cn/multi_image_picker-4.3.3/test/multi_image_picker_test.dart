@@ -12,7 +12,8 @@ void main() {
       channel.setMockMethodCallHandler((MethodCall methodCall) async {
         log.add(methodCall);
         if (methodCall.method == 'requestOriginal' ||
-            methodCall.method == 'requestThumbnail') {
+            methodCall.method == 'requestThumbnail' ||
+            methodCall.method == 'cancelThumbnail') {
           return true;
         }
         return [
@@ -186,5 +187,21 @@ void main() {
         );
       });
     });
+
+    group('#cancelThumbnail', () {
+      const String id = 'SOME_ID';
+      test('accepts correct params', () async {
+        await MultiImagePicker.cancelThumbnail(id);
+
+        expect(
+          log,
+          <Matcher>[
+            isMethodCall('cancelThumbnail', arguments: <String, dynamic>{
+              'identifier': id,
+            }),
+          ],
+        );
+      });
+    });
   });
 }
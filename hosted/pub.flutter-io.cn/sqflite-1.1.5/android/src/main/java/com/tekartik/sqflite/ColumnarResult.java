@@ -0,0 +1,301 @@
+package com.tekartik.sqflite;
+
+import android.database.Cursor;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Query result encoded column by column in typed arrays
+ * <p>
+ * {
+ * 'columns': ['id', 'name'],
+ * 'rowCount': 2,
+ * 'columnData': [
+ * { 'type': 'integer', 'values': long[] },
+ * { 'type': 'text', 'offsets': int[rowCount + 1], 'data': byte[] (utf8), 'nulls': byte[] (bitmap) }
+ * ]
+ * }
+ * <p>
+ * type is one of integer, real, text, blob, null (all values are null) or mixed (values
+ * of different types, then 'values' is a plain list). 'nulls' is only set if there is
+ * at least one null value, bit (row % 8) of byte (row / 8) is set for a null value.
+ */
+public class ColumnarResult {
+
+    static final String TYPE_INTEGER = "integer";
+    static final String TYPE_REAL = "real";
+    static final String TYPE_TEXT = "text";
+    static final String TYPE_BLOB = "blob";
+    static final String TYPE_NULL = "null";
+    static final String TYPE_MIXED = "mixed";
+
+    static final String PARAM_COLUMNS = "columns";
+    static final String PARAM_ROW_COUNT = "rowCount";
+    static final String PARAM_COLUMN_DATA = "columnData";
+    static final String PARAM_TYPE = "type";
+    static final String PARAM_VALUES = "values";
+    static final String PARAM_OFFSETS = "offsets";
+    static final String PARAM_DATA = "data";
+    static final String PARAM_NULLS = "nulls";
+
+    static final private Charset UTF8 = Charset.forName("UTF-8");
+
+    final private String[] columns;
+    final private Column[] columnData;
+    private int rowCount = 0;
+
+    public ColumnarResult(String[] columns) {
+        this.columns = columns;
+        columnData = new Column[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            columnData[i] = new Column();
+        }
+    }
+
+    // Read up to maxRows rows from the current cursor position
+    static public ColumnarResult fromCursor(Cursor cursor, int maxRows) {
+        ColumnarResult result = new ColumnarResult(cursor.getColumnNames());
+        int columnCount = result.columns.length;
+        while (result.rowCount < maxRows && cursor.moveToNext()) {
+            for (int i = 0; i < columnCount; i++) {
+                switch (cursor.getType(i)) {
+                    case Cursor.FIELD_TYPE_INTEGER:
+                        result.addLong(i, cursor.getLong(i));
+                        break;
+                    case Cursor.FIELD_TYPE_FLOAT:
+                        result.addDouble(i, cursor.getDouble(i));
+                        break;
+                    case Cursor.FIELD_TYPE_STRING:
+                        result.addString(i, cursor.getString(i));
+                        break;
+                    case Cursor.FIELD_TYPE_BLOB:
+                        result.addBlob(i, cursor.getBlob(i));
+                        break;
+                    default:
+                        result.addNull(i);
+                        break;
+                }
+            }
+            result.endRow();
+        }
+        return result;
+    }
+
+    public void addNull(int column) {
+        columnData[column].addNull(rowCount);
+    }
+
+    public void addLong(int column, long value) {
+        columnData[column].addLong(rowCount, value);
+    }
+
+    public void addDouble(int column, double value) {
+        columnData[column].addDouble(rowCount, value);
+    }
+
+    public void addString(int column, String value) {
+        columnData[column].addString(rowCount, value);
+    }
+
+    public void addBlob(int column, byte[] value) {
+        columnData[column].addBlob(rowCount, value);
+    }
+
+    public void endRow() {
+        rowCount++;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        List<Map<String, Object>> data = new ArrayList<>(columns.length);
+        for (Column column : columnData) {
+            data.add(column.toMap(rowCount));
+        }
+        map.put(PARAM_COLUMNS, Arrays.asList(columns));
+        map.put(PARAM_ROW_COUNT, rowCount);
+        map.put(PARAM_COLUMN_DATA, data);
+        return map;
+    }
+
+    // Values of one column, the type is set by the first non null value
+    static private class Column {
+        String type = TYPE_NULL;
+        byte[] nulls;
+
+        long[] longs;
+        double[] doubles;
+        // text & blob
+        int[] offsets;
+        byte[] bytes;
+        int byteCount;
+        // mixed
+        List<Object> values;
+
+        private void setNull(int row) {
+            if (nulls == null) {
+                nulls = new byte[Math.max(8, (row >> 3) + 1)];
+            } else if ((row >> 3) >= nulls.length) {
+                nulls = Arrays.copyOf(nulls, Math.max(nulls.length * 2, (row >> 3) + 1));
+            }
+            nulls[row >> 3] |= 1 << (row & 7);
+        }
+
+        private boolean isNull(int row) {
+            return nulls != null && (row >> 3) < nulls.length && (nulls[row >> 3] & (1 << (row & 7))) != 0;
+        }
+
+        // Set the type on the first value, switch to mixed on a different one
+        // return false if the value must be added as mixed
+        private boolean checkType(String valueType, int row) {
+            if (type.equals(valueType)) {
+                return true;
+            }
+            if (type.equals(TYPE_NULL)) {
+                type = valueType;
+                switch (valueType) {
+                    case TYPE_INTEGER:
+                        longs = new long[Math.max(16, row + 1)];
+                        break;
+                    case TYPE_REAL:
+                        doubles = new double[Math.max(16, row + 1)];
+                        break;
+                    default:
+                        // previous null values are empty
+                        offsets = new int[Math.max(16, row + 2)];
+                        bytes = new byte[256];
+                        break;
+                }
+                return true;
+            }
+            if (!type.equals(TYPE_MIXED)) {
+                toMixed(row);
+            }
+            return false;
+        }
+
+        // Convert the current typed values to a list of objects
+        private void toMixed(int rowCount) {
+            values = new ArrayList<>();
+            for (int row = 0; row < rowCount; row++) {
+                values.add(isNull(row) ? null : getValue(row));
+            }
+            type = TYPE_MIXED;
+            longs = null;
+            doubles = null;
+            offsets = null;
+            bytes = null;
+        }
+
+        private Object getValue(int row) {
+            switch (type) {
+                case TYPE_INTEGER:
+                    return longs[row];
+                case TYPE_REAL:
+                    return doubles[row];
+                case TYPE_TEXT:
+                    return new String(bytes, offsets[row], offsets[row + 1] - offsets[row], UTF8);
+                case TYPE_BLOB:
+                    return Arrays.copyOfRange(bytes, offsets[row], offsets[row + 1]);
+            }
+            return null;
+        }
+
+        void addNull(int row) {
+            if (type.equals(TYPE_MIXED)) {
+                values.add(null);
+                return;
+            }
+            setNull(row);
+            if (offsets != null) {
+                addBytes(row, new byte[0]);
+            }
+        }
+
+        void addLong(int row, long value) {
+            if (!checkType(TYPE_INTEGER, row)) {
+                values.add(value);
+                return;
+            }
+            if (row >= longs.length) {
+                longs = Arrays.copyOf(longs, Math.max(longs.length * 2, row + 1));
+            }
+            longs[row] = value;
+        }
+
+        void addDouble(int row, double value) {
+            if (!checkType(TYPE_REAL, row)) {
+                values.add(value);
+                return;
+            }
+            if (row >= doubles.length) {
+                doubles = Arrays.copyOf(doubles, Math.max(doubles.length * 2, row + 1));
+            }
+            doubles[row] = value;
+        }
+
+        void addString(int row, String value) {
+            if (!checkType(TYPE_TEXT, row)) {
+                values.add(value);
+                return;
+            }
+            addBytes(row, value.getBytes(UTF8));
+        }
+
+        void addBlob(int row, byte[] value) {
+            if (!checkType(TYPE_BLOB, row)) {
+                values.add(value);
+                return;
+            }
+            addBytes(row, value);
+        }
+
+        private void addBytes(int row, byte[] value) {
+            if (row + 1 >= offsets.length) {
+                offsets = Arrays.copyOf(offsets, Math.max(offsets.length * 2, row + 2));
+            }
+            offsets[row] = byteCount;
+            if (byteCount + value.length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, byteCount + value.length));
+            }
+            System.arraycopy(value, 0, bytes, byteCount, value.length);
+            byteCount += value.length;
+            offsets[row + 1] = byteCount;
+        }
+
+        Map<String, Object> toMap(int rowCount) {
+            Map<String, Object> map = new HashMap<>();
+            map.put(PARAM_TYPE, type);
+            switch (type) {
+                case TYPE_INTEGER:
+                    map.put(PARAM_VALUES, Arrays.copyOf(longs, rowCount));
+                    break;
+                case TYPE_REAL:
+                    map.put(PARAM_VALUES, Arrays.copyOf(doubles, rowCount));
+                    break;
+                case TYPE_TEXT:
+                case TYPE_BLOB:
+                    map.put(PARAM_OFFSETS, Arrays.copyOf(offsets, rowCount + 1));
+                    map.put(PARAM_DATA, Arrays.copyOf(bytes, byteCount));
+                    break;
+                case TYPE_MIXED:
+                    map.put(PARAM_VALUES, values);
+                    return map;
+                default:
+                    return map;
+            }
+            if (nulls != null) {
+                map.put(PARAM_NULLS, Arrays.copyOf(nulls, (rowCount + 7) >> 3));
+            }
+            return map;
+        }
+    }
+}
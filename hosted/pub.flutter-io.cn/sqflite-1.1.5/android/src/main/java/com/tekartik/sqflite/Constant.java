@@ -15,29 +15,100 @@ public class Constant {
     static final public String METHOD_INSERT = "insert";
     static final public String METHOD_EXECUTE = "execute";
     static final public String METHOD_QUERY = "query";
+    // Next page of a query opened with a cursor page size
+    static final public String METHOD_QUERY_CURSOR_NEXT = "queryCursorNext";
     static final public String METHOD_UPDATE = "update";
     static final public String METHOD_BATCH = "batch";
+    // Same insert statement bound for a list of arguments
+    static final public String METHOD_BATCH_INSERT = "batchInsert";
+    // Batch operations run in a single transaction, see PipelineArguments
+    static final public String METHOD_PIPELINE = "pipeline";
+    // Native debug information (statement cache...)
+    static final public String METHOD_DEBUG = "debug";
+    // Per sql statistics, when enabled
+    static final public String METHOD_GET_METRICS = "getMetrics";
+    // Stream a table to/from a binary file, see TableFile
+    static final public String METHOD_EXPORT_TABLE = "exportTable";
+    static final public String METHOD_IMPORT_TABLE = "importTable";
+    // Called on the dart side during export/import
+    static final public String METHOD_TABLE_PROGRESS = "tableProgress";
 
     static final String PARAM_ID = "id";
     static final String PARAM_PATH = "path";
     // when opening a database
     static final String PARAM_READ_ONLY = "readOnly"; // boolean
     static final String PARAM_SINGLE_INSTANCE = "singleInstance"; // boolean
+    static final String PARAM_QUERY_CACHE_SIZE = "queryCacheSize"; // int, Android only, see QueryResultCache
+    // Android only, applied with PRAGMA after opening
+    static final String PARAM_PAGE_SIZE = "pageSize"; // int
+    static final String PARAM_CACHE_SIZE = "cacheSize"; // int, pages or -KiB
+    static final String PARAM_MMAP_SIZE = "mmapSize"; // int, bytes
+    static final String PARAM_SYNCHRONOUS = "synchronous"; // String (off, normal, full, extra) or int
+    static final String PARAM_JOURNAL_MODE = "journalMode"; // String (delete, truncate, persist, memory, wal, off)
+    // Android only, read before returning the open result to fill the page cache
+    static final String PARAM_WARM_UP_QUERY = "warmUpQuery"; // String
     // Result when opening a database
     static final String PARAM_RECOVERED = "recovered";
+    static final String PARAM_READ_CONNECTION_COUNT = "readConnectionCount"; // int, if any
 
     static final String PARAM_QUERY_AS_MAP_LIST = "queryAsMapList"; // boolean
     static final String PARAM_THREAD_PRIORITY = "androidThreadPriority"; // int
+    static final String PARAM_THREAD_PER_DATABASE = "androidThreadPerDatabase"; // boolean
+    static final String PARAM_METRICS = "androidMetrics"; // boolean
+    static final String PARAM_READ_CONNECTION_COUNT_OPTION = "androidReadConnectionCount"; // int, 0 to disable
+    static final String PARAM_STATEMENT_CACHE_SIZE = "androidStatementCacheSize"; // int, 0 to disable
+
+    // debug result
+    static final String PARAM_DATABASES = "databases"; // map of database info by id
+    static final String PARAM_THREAD = "thread";
+    static final String PARAM_QUEUE = "queue";
+    static final String PARAM_CURSOR_COUNT = "cursorCount";
+    static final String PARAM_READ_CONNECTIONS = "readConnections"; // list of thread and count
+    static final String PARAM_DEPTH = "depth";
+    static final String PARAM_MAX_DEPTH = "maxDepth";
+    static final String PARAM_COUNT = "count";
+    static final String PARAM_AVERAGE_WAIT = "averageWait"; // ms
+    static final String PARAM_MAX_WAIT = "maxWait"; // ms
+    static final String PARAM_STATEMENT_CACHE = "statementCache";
+    static final String PARAM_QUERY_CACHE = "queryCache";
+    static final String PARAM_SIZE = "size";
+    static final String PARAM_MAX_SIZE = "maxSize";
+    static final String PARAM_HIT_COUNT = "hitCount";
+    static final String PARAM_MISS_COUNT = "missCount";
+    static final String PARAM_HIT_RATE = "hitRate"; // double 0..1
 
     public static final String PARAM_SQL = "sql";
     public static final String PARAM_SQL_ARGUMENTS = "arguments";
+    // in batchInsert, list of arguments
+    public static final String PARAM_SQL_ARGUMENTS_LIST = "argumentsList";
     public static final String PARAM_NO_RESULT = "noResult";
     public static final String PARAM_CONTINUE_OR_ERROR = "continueOnError";
 
+    // in query, to get the result by pages
+    public static final String PARAM_CURSOR_PAGE_SIZE = "cursorPageSize"; // int
+    // in query, to get the result as typed arrays per column, see ColumnarResult
+    public static final String PARAM_COLUMNAR = "columnar"; // boolean
+    // in query result and queryCursorNext
+    static final String PARAM_CURSOR_ID = "cursorId"; // int
+    // in queryCursorNext, to close the cursor
+    static final String PARAM_CANCEL = "cancel"; // boolean
+    // in getMetrics, to reset the statistics once read
+    static final String PARAM_RESET = "reset"; // boolean
+
+    // in exportTable/importTable
+    static final String PARAM_TABLE = "table";
+    static final String PARAM_FILE = "file"; // path of the table file
+    static final String PARAM_PROGRESS_ID = "progressId"; // int, optional, tableProgress is called when set
+    // in exportTable/importTable result and tableProgress
+    static final String PARAM_ROW_COUNT = "rowCount";
+    static final String PARAM_BYTE_COUNT = "byteCount";
+
     // in batch
     static final String PARAM_OPERATIONS = "operations";
     // in each operation
     public static final String PARAM_METHOD = "method";
+    // in pipeline operation arguments, index of a previous operation to use its result
+    static final String PARAM_PIPELINE_RESULT = "pipelineResult"; // int
 
     // Batch operation results
     public static final String PARAM_RESULT = "result";
@@ -50,6 +121,7 @@ public class Constant {
     static final String ERROR_BAD_PARAM = "bad_param"; // internal only
     static final String ERROR_OPEN_FAILED = "open_failed"; // msg
     static final String ERROR_DATABASE_CLOSED = "database_closed"; // msg
+    static final String ERROR_CURSOR_NOT_FOUND = "cursor_not_found"; // msg
 
     // memory database path
     static final String MEMORY_DATABASE_PATH = ":memory:";
@@ -0,0 +1,59 @@
+package com.tekartik.sqflite;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.tekartik.sqflite.Constant.PARAM_PIPELINE_RESULT;
+import static com.tekartik.sqflite.Constant.PARAM_SQL_ARGUMENTS;
+
+/**
+ * Resolve the references to previous results in the operations of a pipeline
+ * <p>
+ * An argument { 'pipelineResult': 0 } is replaced by the result of the first operation,
+ * which must be a single value (insert id or change count)
+ */
+public class PipelineArguments {
+
+    // Copy of the operation with its references resolved, the operation itself if it has none
+    static Map<String, Object> resolve(Map<String, Object> operation, List<Object> results) {
+        @SuppressWarnings("unchecked")
+        List<Object> arguments = (List<Object>) operation.get(PARAM_SQL_ARGUMENTS);
+        if (arguments == null) {
+            return operation;
+        }
+        List<Object> resolved = null;
+        for (int i = 0; i < arguments.size(); i++) {
+            Object argument = arguments.get(i);
+            if (argument instanceof Map) {
+                if (resolved == null) {
+                    resolved = new ArrayList<>(arguments);
+                }
+                resolved.set(i, getResult((Map<?, ?>) argument, results));
+            }
+        }
+        if (resolved == null) {
+            return operation;
+        }
+        Map<String, Object> map = new HashMap<>(operation);
+        map.put(PARAM_SQL_ARGUMENTS, resolved);
+        return map;
+    }
+
+    static private Object getResult(Map<?, ?> reference, List<Object> results) {
+        Object index = reference.get(PARAM_PIPELINE_RESULT);
+        if (!(index instanceof Integer)) {
+            throw new IllegalArgumentException("invalid argument " + reference);
+        }
+        int i = (Integer) index;
+        if (i < 0 || i >= results.size()) {
+            throw new IllegalArgumentException("pipelineResult " + i + " does not reference a previous operation");
+        }
+        Object result = results.get(i);
+        if (result != null && !(result instanceof Number) && !(result instanceof String)) {
+            throw new IllegalArgumentException("pipelineResult " + i + " is not a single value");
+        }
+        return result;
+    }
+}
@@ -0,0 +1,334 @@
+package com.tekartik.sqflite;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.tekartik.sqflite.Constant.PARAM_HIT_COUNT;
+import static com.tekartik.sqflite.Constant.PARAM_HIT_RATE;
+import static com.tekartik.sqflite.Constant.PARAM_MAX_SIZE;
+import static com.tekartik.sqflite.Constant.PARAM_MISS_COUNT;
+import static com.tekartik.sqflite.Constant.PARAM_SIZE;
+
+/**
+ * Encoded query results of a database by sql, arguments and result format
+ * <p>
+ * Each entry knows the tables read by its query. A write to a table removes the entries
+ * reading it. Anything that cannot be analyzed (unknown statement, schema change, rollback,
+ * triggers or foreign keys that could modify other tables) clears the whole cache.
+ * Queries reading a view or calling a non deterministic function are never cached.
+ * <p>
+ * Writes done by another connection to the same file are not seen.
+ */
+public class QueryResultCache {
+
+    // Keywords that cannot be a table alias
+    static final private Set<String> NOT_ALIASES = new HashSet<>(Arrays.asList(
+            "where", "join", "inner", "left", "right", "full", "outer", "cross", "natural", "on", "using",
+            "group", "order", "limit", "union", "intersect", "except", "having", "window", "indexed", "not"));
+
+    // Functions whose result changes without any write
+    static final private Set<String> NON_DETERMINISTIC = new HashSet<>(Arrays.asList(
+            "random", "randomblob", "changes", "total_changes", "last_insert_rowid",
+            "date", "time", "datetime", "julianday", "strftime", "unixepoch",
+            "current_date", "current_time", "current_timestamp"));
+
+    // Statements that do not modify any data
+    static final private Set<String> NO_WRITE = new HashSet<>(Arrays.asList(
+            "select", "begin", "commit", "end", "savepoint", "release", "explain"));
+
+    final private int maxSize;
+    final private LinkedHashMap<Key, Entry> entries;
+    private int hitCount;
+    private int missCount;
+
+    // Schema information, to refresh when dirty
+    private boolean schemaDirty = true;
+    private Set<String> views = new HashSet<>();
+    private boolean writesMayCascade = false;
+
+    public QueryResultCache(final int maxSize) {
+        this.maxSize = maxSize;
+        entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > QueryResultCache.this.maxSize;
+            }
+        };
+    }
+
+    static public class Key {
+        final SqlCommand command;
+        final String format;
+        // read tables, not part of the key
+        final Set<String> tables;
+        private final int hashCode;
+
+        private Key(SqlCommand command, String format, Set<String> tables) {
+            this.command = command;
+            this.format = format;
+            this.tables = tables;
+            // SqlCommand.hashCode only uses the sql, the same query with other arguments
+            // would collide
+            this.hashCode = (command.hashCode() * 31 + getArgumentsHashCode(command.getRawSqlArguments())) * 31
+                    + format.hashCode();
+        }
+
+        // Consistent with SqlCommand.equals, blobs are compared by content
+        private static int getArgumentsHashCode(List<Object> arguments) {
+            int hashCode = 1;
+            for (Object argument : arguments) {
+                hashCode = hashCode * 31 + (argument instanceof byte[] ? Arrays.hashCode((byte[]) argument)
+                        : argument != null ? argument.hashCode() : 0);
+            }
+            return hashCode;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Key) {
+                Key o = (Key) obj;
+                return format.equals(o.format) && command.equals(o.command);
+            }
+            return false;
+        }
+    }
+
+    static private class Entry {
+        final Object result;
+        final Set<String> tables;
+
+        private Entry(Object result, Set<String> tables) {
+            this.result = result;
+            this.tables = tables;
+        }
+    }
+
+    // Lower case tokens, comments are skipped, quoted identifiers are unquoted
+    // and string literals keep their quotes
+    static List<String> tokenize(String sql) {
+        List<String> tokens = new ArrayList<>();
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char ch = sql.charAt(i);
+            if (Character.isWhitespace(ch)) {
+                i++;
+            } else if (ch == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (ch == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (ch == '\'' || ch == '"' || ch == '`' || ch == '[') {
+                char endCh = ch == '[' ? ']' : ch;
+                int end = sql.indexOf(endCh, i + 1);
+                // doubled quote inside
+                while (end >= 0 && ch != '[' && end + 1 < length && sql.charAt(end + 1) == endCh) {
+                    end = sql.indexOf(endCh, end + 2);
+                }
+                if (end < 0) {
+                    end = length;
+                }
+                String content = sql.substring(i + 1, end).toLowerCase();
+                tokens.add(ch == '\'' ? "'" + content + "'" : content);
+                i = end + 1;
+            } else if (Character.isLetterOrDigit(ch) || ch == '_' || ch == '$') {
+                int start = i;
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i))
+                        || sql.charAt(i) == '_' || sql.charAt(i) == '$')) {
+                    i++;
+                }
+                tokens.add(sql.substring(start, i).toLowerCase());
+            } else {
+                tokens.add(String.valueOf(ch));
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    static private String tokenAt(List<String> tokens, int index) {
+        return index < tokens.size() ? tokens.get(index) : "";
+    }
+
+    static private boolean isName(String token) {
+        return token.length() > 0 && (Character.isLetter(token.charAt(0)) || token.charAt(0) == '_');
+    }
+
+    // Tables (or views, common table expressions, table functions) after FROM or JOIN
+    static Set<String> getReadTables(List<String> tokens) {
+        Set<String> tables = new HashSet<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if (!token.equals("from") && !token.equals("join")) {
+                continue;
+            }
+            int j = i + 1;
+            while (isName(tokenAt(tokens, j))) {
+                String name = tokens.get(j++);
+                // schema.table
+                if (tokenAt(tokens, j).equals(".")) {
+                    name = tokenAt(tokens, j + 1);
+                    j += 2;
+                }
+                tables.add(name);
+                // alias
+                if (tokenAt(tokens, j).equals("as")) {
+                    j += 2;
+                } else if (isName(tokenAt(tokens, j)) && !NOT_ALIASES.contains(tokenAt(tokens, j))) {
+                    j++;
+                }
+                if (!tokenAt(tokens, j).equals(",")) {
+                    break;
+                }
+                j++;
+            }
+        }
+        return tables;
+    }
+
+    // Table modified by an INSERT, REPLACE, UPDATE or DELETE, null if unknown
+    static String getWriteTable(List<String> tokens) {
+        int i = 0;
+        switch (tokenAt(tokens, i)) {
+            case "insert":
+            case "update":
+                i++;
+                // OR ROLLBACK/ABORT/REPLACE/FAIL/IGNORE
+                if (tokenAt(tokens, i).equals("or")) {
+                    i += 2;
+                }
+                break;
+            case "replace":
+            case "delete":
+                i++;
+                break;
+            default:
+                return null;
+        }
+        if (tokenAt(tokens, i).equals("into") || tokenAt(tokens, i).equals("from")) {
+            i++;
+        }
+        if (!isName(tokenAt(tokens, i))) {
+            return null;
+        }
+        String name = tokens.get(i);
+        if (tokenAt(tokens, i + 1).equals(".")) {
+            name = tokenAt(tokens, i + 2);
+        }
+        return name.length() > 0 ? name : null;
+    }
+
+    public synchronized boolean isSchemaDirty() {
+        return schemaDirty;
+    }
+
+    // views: lower case view names
+    // writesMayCascade: true if there are triggers or foreign keys
+    public synchronized void setSchema(Set<String> views, boolean writesMayCascade) {
+        this.views = views;
+        this.writesMayCascade = writesMayCascade;
+        schemaDirty = false;
+    }
+
+    // format: result format (list, map list, columnar...)
+    // return null if the query cannot be cached
+    public synchronized Key getKey(SqlCommand command, String format) {
+        if (command.getSql() == null) {
+            return null;
+        }
+        List<String> tokens = tokenize(command.getSql());
+        String first = tokenAt(tokens, 0);
+        if (!first.equals("select") && !first.equals("with")) {
+            return null;
+        }
+        for (String token : tokens) {
+            if (NON_DETERMINISTIC.contains(token) || token.equals("'now'")) {
+                return null;
+            }
+        }
+        Set<String> tables = getReadTables(tokens);
+        if (tables.isEmpty()) {
+            return null;
+        }
+        for (String table : tables) {
+            if (views.contains(table)) {
+                return null;
+            }
+        }
+        return new Key(command, format, tables);
+    }
+
+    public synchronized Object get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return entry.result;
+    }
+
+    public synchronized void put(Key key, Object result) {
+        entries.put(key, new Entry(result, key.tables));
+    }
+
+    // To call for every statement that is not a query
+    public synchronized void onWrite(String sql) {
+        if (sql == null) {
+            return;
+        }
+        List<String> tokens = tokenize(sql);
+        String first = tokenAt(tokens, 0);
+        if (NO_WRITE.contains(first)) {
+            return;
+        }
+        if (first.equals("create") || first.equals("drop") || first.equals("alter")) {
+            schemaDirty = true;
+            clear();
+            return;
+        }
+        String table = getWriteTable(tokens);
+        if (table == null || writesMayCascade) {
+            clear();
+            return;
+        }
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().tables.contains(table)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized Map<String, Object> getInfo() {
+        Map<String, Object> info = new HashMap<>();
+        int lookupCount = hitCount + missCount;
+        info.put(PARAM_SIZE, entries.size());
+        info.put(PARAM_MAX_SIZE, maxSize);
+        info.put(PARAM_HIT_COUNT, hitCount);
+        info.put(PARAM_MISS_COUNT, missCount);
+        info.put(PARAM_HIT_RATE, lookupCount == 0 ? 0.0 : (double) hitCount / lookupCount);
+        return info;
+    }
+}
@@ -3,9 +3,14 @@ package com.tekartik.sqflite;
 import android.annotation.SuppressLint;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteCursor;
+import android.database.sqlite.SQLiteCursorDriver;
 import android.database.SQLException;
 import android.database.sqlite.SQLiteCantOpenDatabaseException;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteQuery;
+import android.database.sqlite.SQLiteStatement;
 import android.os.Handler;
 import android.os.HandlerThread;
 import android.os.Process;
@@ -18,12 +23,19 @@ import com.tekartik.sqflite.operation.MethodCallOperation;
 import com.tekartik.sqflite.operation.Operation;
 import com.tekartik.sqflite.operation.SqlErrorInfo;
 
+import java.io.Closeable;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import io.flutter.plugin.common.MethodCall;
 import io.flutter.plugin.common.MethodChannel;
@@ -34,24 +46,70 @@ import io.flutter.plugin.common.PluginRegistry.Registrar;
 import static com.tekartik.sqflite.Constant.ERROR_BAD_PARAM;
 import static com.tekartik.sqflite.Constant.MEMORY_DATABASE_PATH;
 import static com.tekartik.sqflite.Constant.METHOD_BATCH;
+import static com.tekartik.sqflite.Constant.METHOD_BATCH_INSERT;
+import static com.tekartik.sqflite.Constant.METHOD_PIPELINE;
 import static com.tekartik.sqflite.Constant.METHOD_CLOSE_DATABASE;
+import static com.tekartik.sqflite.Constant.METHOD_DEBUG;
 import static com.tekartik.sqflite.Constant.METHOD_DEBUG_MODE;
 import static com.tekartik.sqflite.Constant.METHOD_EXECUTE;
+import static com.tekartik.sqflite.Constant.METHOD_EXPORT_TABLE;
 import static com.tekartik.sqflite.Constant.METHOD_GET_DATABASES_PATH;
+import static com.tekartik.sqflite.Constant.METHOD_GET_METRICS;
 import static com.tekartik.sqflite.Constant.METHOD_GET_PLATFORM_VERSION;
+import static com.tekartik.sqflite.Constant.METHOD_IMPORT_TABLE;
 import static com.tekartik.sqflite.Constant.METHOD_INSERT;
 import static com.tekartik.sqflite.Constant.METHOD_OPEN_DATABASE;
 import static com.tekartik.sqflite.Constant.METHOD_OPTIONS;
 import static com.tekartik.sqflite.Constant.METHOD_QUERY;
+import static com.tekartik.sqflite.Constant.METHOD_QUERY_CURSOR_NEXT;
+import static com.tekartik.sqflite.Constant.METHOD_TABLE_PROGRESS;
 import static com.tekartik.sqflite.Constant.METHOD_UPDATE;
+import static com.tekartik.sqflite.Constant.PARAM_AVERAGE_WAIT;
+import static com.tekartik.sqflite.Constant.PARAM_BYTE_COUNT;
+import static com.tekartik.sqflite.Constant.PARAM_CACHE_SIZE;
+import static com.tekartik.sqflite.Constant.PARAM_CANCEL;
+import static com.tekartik.sqflite.Constant.PARAM_COLUMNAR;
+import static com.tekartik.sqflite.Constant.PARAM_COUNT;
+import static com.tekartik.sqflite.Constant.PARAM_CURSOR_COUNT;
+import static com.tekartik.sqflite.Constant.PARAM_CURSOR_ID;
+import static com.tekartik.sqflite.Constant.PARAM_CURSOR_PAGE_SIZE;
+import static com.tekartik.sqflite.Constant.PARAM_DATABASES;
+import static com.tekartik.sqflite.Constant.PARAM_DEPTH;
+import static com.tekartik.sqflite.Constant.PARAM_FILE;
+import static com.tekartik.sqflite.Constant.PARAM_HIT_COUNT;
+import static com.tekartik.sqflite.Constant.PARAM_HIT_RATE;
 import static com.tekartik.sqflite.Constant.PARAM_ID;
+import static com.tekartik.sqflite.Constant.PARAM_JOURNAL_MODE;
+import static com.tekartik.sqflite.Constant.PARAM_MAX_DEPTH;
+import static com.tekartik.sqflite.Constant.PARAM_MAX_SIZE;
+import static com.tekartik.sqflite.Constant.PARAM_MAX_WAIT;
+import static com.tekartik.sqflite.Constant.PARAM_MISS_COUNT;
+import static com.tekartik.sqflite.Constant.PARAM_MMAP_SIZE;
+import static com.tekartik.sqflite.Constant.PARAM_NO_RESULT;
 import static com.tekartik.sqflite.Constant.PARAM_OPERATIONS;
+import static com.tekartik.sqflite.Constant.PARAM_PAGE_SIZE;
 import static com.tekartik.sqflite.Constant.PARAM_PATH;
+import static com.tekartik.sqflite.Constant.PARAM_PROGRESS_ID;
+import static com.tekartik.sqflite.Constant.PARAM_QUERY_AS_MAP_LIST;
+import static com.tekartik.sqflite.Constant.PARAM_QUERY_CACHE;
+import static com.tekartik.sqflite.Constant.PARAM_QUERY_CACHE_SIZE;
+import static com.tekartik.sqflite.Constant.PARAM_QUEUE;
+import static com.tekartik.sqflite.Constant.PARAM_READ_CONNECTIONS;
+import static com.tekartik.sqflite.Constant.PARAM_READ_CONNECTION_COUNT;
 import static com.tekartik.sqflite.Constant.PARAM_READ_ONLY;
 import static com.tekartik.sqflite.Constant.PARAM_RECOVERED;
+import static com.tekartik.sqflite.Constant.PARAM_RESET;
+import static com.tekartik.sqflite.Constant.PARAM_ROW_COUNT;
 import static com.tekartik.sqflite.Constant.PARAM_SINGLE_INSTANCE;
+import static com.tekartik.sqflite.Constant.PARAM_SIZE;
 import static com.tekartik.sqflite.Constant.PARAM_SQL;
 import static com.tekartik.sqflite.Constant.PARAM_SQL_ARGUMENTS;
+import static com.tekartik.sqflite.Constant.PARAM_SQL_ARGUMENTS_LIST;
+import static com.tekartik.sqflite.Constant.PARAM_STATEMENT_CACHE;
+import static com.tekartik.sqflite.Constant.PARAM_SYNCHRONOUS;
+import static com.tekartik.sqflite.Constant.PARAM_TABLE;
+import static com.tekartik.sqflite.Constant.PARAM_THREAD;
+import static com.tekartik.sqflite.Constant.PARAM_WARM_UP_QUERY;
 import static com.tekartik.sqflite.Constant.TAG;
 
 /**
@@ -60,12 +118,20 @@ import static com.tekartik.sqflite.Constant.TAG;
 public class SqflitePlugin implements MethodCallHandler {
 
     static final Map<String, Integer> _singleInstancesByPath = new HashMap<>();
+    static final private String[] EMPTY_STRING_ARRAY = new String[0];
     static private boolean QUERY_AS_MAP_LIST = false; // set by options
     static private int THREAD_PRIORITY = Process.THREAD_PRIORITY_BACKGROUND;
+    static private int STATEMENT_CACHE_SIZE = 25; // compiled statements per database, set by options
+    static private boolean THREAD_PER_DATABASE = false; // set by options
+    static private SqlMetrics METRICS = null; // set by options, null when disabled
+    static private int READ_CONNECTION_COUNT = 0; // read only connections per database in WAL mode, set by options
+    static final private int EXPORT_PAGE_SIZE = 1000; // rows per exportTable query
     private final Object databaseMapLocker = new Object();
     // local cache
     String databasesPath;
     private Context context;
+    // To call the dart side (table progress), null when not registered
+    private MethodChannel channel;
     private int databaseOpenCount = 0;
     private int databaseId = 0; // incremental database id
     // Database thread execution
@@ -78,12 +144,17 @@ public class SqflitePlugin implements MethodCallHandler {
         this.context = context;
     }
 
+    SqflitePlugin(Context context, MethodChannel channel) {
+        this.context = context;
+        this.channel = channel;
+    }
+
     //
     // Plugin registration.
     //
     public static void registerWith(Registrar registrar) {
         final MethodChannel channel = new MethodChannel(registrar.messenger(), "com.tekartik.sqflite");
-        channel.setMethodCallHandler(new SqflitePlugin(registrar.context()));
+        channel.setMethodCallHandler(new SqflitePlugin(registrar.context(), channel));
     }
 
     private static Object cursorValue(Cursor cursor, int index) {
@@ -180,6 +251,19 @@ public class SqflitePlugin implements MethodCallHandler {
         }
     }
 
+    // Query binding the arguments with their type, int/long no longer
+    // need to be embedded in the sql (see SqlCommand.sanitizeForQuery) so that the sql
+    // remains the same and its compiled statement can be reused by SQLite
+    private static Cursor rawQuery(SQLiteDatabase db, final SqlCommand command) {
+        return db.rawQueryWithFactory(new SQLiteDatabase.CursorFactory() {
+            @Override
+            public Cursor newCursor(SQLiteDatabase db, SQLiteCursorDriver driver, String editTable, SQLiteQuery query) {
+                command.bindTo(query);
+                return new SQLiteCursor(driver, editTable, query);
+            }
+        }, command.getSql(), EMPTY_STRING_ARRAY, null);
+    }
+
     static boolean isInMemoryPath(String path) {
         return (path == null || path.equals(MEMORY_DATABASE_PATH));
     }
@@ -221,7 +305,7 @@ public class SqflitePlugin implements MethodCallHandler {
             Log.d(TAG, "[" + database.getThreadLogTag() + "] " + command);
         }
         try {
-            database.getWritableDatabase().execSQL(command.getSql(), command.getSqlArguments());
+            execSQL(database, command);
             return true;
         } catch (Exception exception) {
             handleException(exception, operation, database);
@@ -234,7 +318,7 @@ public class SqflitePlugin implements MethodCallHandler {
             Log.d(TAG, "[" + database.getThreadLogTag() + "] " + command);
         }
         try {
-            database.getWritableDatabase().execSQL(command.getSql(), command.getSqlArguments());
+            execSQL(database, command);
         } catch (Exception exception) {
             Operation operation = new ExecuteOperation(result, command);
             handleException(exception, operation, database);
@@ -243,6 +327,68 @@ public class SqflitePlugin implements MethodCallHandler {
         return database;
     }
 
+    // Run a task on the database thread, either its own or the shared one
+    private void post(final Database database, final Runnable task) {
+        Handler databaseHandler = database.handler != null ? database.handler : handler;
+        final long postTime = System.nanoTime();
+        database.onTaskQueued();
+        databaseHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                long waitNanos = System.nanoTime() - postTime;
+                database.onTaskStarted(waitNanos);
+                SqlMetrics metrics = METRICS;
+                if (metrics != null) {
+                    metrics.addQueueWait(waitNanos);
+                }
+                try {
+                    task.run();
+                } finally {
+                    database.onTaskDone();
+                }
+            }
+        });
+    }
+
+    // Run a query on the thread of a read connection
+    private void post(final Database database, final ReadConnection readConnection, final Runnable task) {
+        final long postTime = System.nanoTime();
+        readConnection.handler.post(new Runnable() {
+            @Override
+            public void run() {
+                SqlMetrics metrics = METRICS;
+                if (metrics != null) {
+                    metrics.addQueueWait(System.nanoTime() - postTime);
+                }
+                try {
+                    task.run();
+                } finally {
+                    database.releaseReadConnection(readConnection);
+                }
+            }
+        });
+    }
+
+    // Record a successful execution when metrics are enabled
+    // rowCount and readNanos (cursor conversion) only apply to queries
+    private static void addExecutionMetrics(SqlCommand command, long startNanos, int rowCount, long readNanos) {
+        SqlMetrics metrics = METRICS;
+        if (metrics != null) {
+            metrics.addExecution(command.getSql(), System.nanoTime() - startNanos, rowCount, readNanos);
+        }
+    }
+
+    // Execute a command without result, using the compiled statement cache when possible
+    private void execSQL(Database database, SqlCommand command) {
+        database.onWrite(command.getSql());
+        SQLiteStatement statement = database.getCachedStatement(command);
+        if (statement != null) {
+            statement.executeUpdateDelete();
+        } else {
+            database.getWritableDatabase().execSQL(command.getSql(), command.getSqlArguments());
+        }
+    }
+
     //
     // query
     //
@@ -252,15 +398,24 @@ public class SqflitePlugin implements MethodCallHandler {
         if (database == null) {
             return;
         }
-        final BgResult bgResult = new BgResult(result);
-        handler.post(new Runnable() {
+        final BgResult bgResult = new BgResult(result, call.<String>argument(PARAM_SQL));
+        // Only explicit read only queries can run on a read connection, not paged ones
+        final ReadConnection readConnection = Boolean.TRUE.equals(call.argument(PARAM_READ_ONLY))
+                && call.argument(PARAM_CURSOR_PAGE_SIZE) == null
+                ? database.acquireReadConnection() : null;
+        Runnable task = new Runnable() {
             @Override
             public void run() {
                 MethodCallOperation operation = new MethodCallOperation(call, bgResult);
-                query(database, operation);
+                query(database, operation, readConnection);
 
             }
-        });
+        };
+        if (readConnection != null) {
+            post(database, readConnection, task);
+        } else {
+            post(database, task);
+        }
     }
 
     //
@@ -273,7 +428,7 @@ public class SqflitePlugin implements MethodCallHandler {
             return;
         }
         final BgResult bgResult = new BgResult(result);
-        handler.post(new Runnable() {
+        post(database, new Runnable() {
             @Override
             public void run() {
 
@@ -289,6 +444,7 @@ public class SqflitePlugin implements MethodCallHandler {
                     //devLog(TAG, "map " + map);
                     BatchOperation operation = new BatchOperation(map, noResult);
                     String method = operation.getMethod();
+                    long startNanos = System.nanoTime();
                     switch (method) {
                         case METHOD_EXECUTE:
                             if (execute(database, operation)) {
@@ -304,6 +460,7 @@ public class SqflitePlugin implements MethodCallHandler {
                             break;
                         case METHOD_INSERT:
                             if (insert(database, operation)) {
+                                addExecutionMetrics(operation.getSqlCommand(), startNanos, 0, 0);
                                 //devLog(TAG, "results: " + operation.getBatchResults());
                                 operation.handleSuccess(results);
                             } else if (continueOnError) {
@@ -328,6 +485,7 @@ public class SqflitePlugin implements MethodCallHandler {
                             break;
                         case METHOD_UPDATE:
                             if (update(database, operation)) {
+                                addExecutionMetrics(operation.getSqlCommand(), startNanos, 0, 0);
                                 //devLog(TAG, "results: " + operation.getBatchResults());
                                 operation.handleSuccess(results);
                             } else if (continueOnError) {
@@ -354,17 +512,226 @@ public class SqflitePlugin implements MethodCallHandler {
         });
     }
 
+    //
+    // Sqflite.batchInsert
+    //
+    // {
+    // 'id': xxx,
+    // 'sql': 'INSERT INTO Test (name, value) VALUES (?, ?)',
+    // 'argumentsList': [['item 1', 1], ['item 2', 2]],
+    // 'noResult': false
+    // }
+    // The same statement is bound for each row in a single transaction, the result
+    // is the list of inserted ids (null when nothing was inserted)
+    private void onBatchInsertCall(final MethodCall call, Result result) {
+
+        final Database database = getDatabaseOrError(call, result);
+        if (database == null) {
+            return;
+        }
+        final BgResult bgResult = new BgResult(result);
+        post(database, new Runnable() {
+            @Override
+            public void run() {
+                String sql = call.argument(PARAM_SQL);
+                List<List<Object>> argumentsList = call.argument(PARAM_SQL_ARGUMENTS_LIST);
+                boolean noResult = Boolean.TRUE.equals(call.argument(PARAM_NO_RESULT));
+                if (argumentsList == null) {
+                    argumentsList = new ArrayList<>();
+                }
+                List<Long> ids = noResult ? null : new ArrayList<Long>(argumentsList.size());
+
+                if (Debug.LOGV) {
+                    Log.d(TAG, "[" + database.getThreadLogTag() + "] " + sql + " (" + argumentsList.size() + " rows)");
+                }
+                SqlCommand command = new SqlCommand(sql, null);
+                SQLiteDatabase db = database.getWritableDatabase();
+                SQLiteStatement statement = null;
+                try {
+                    statement = db.compileStatement(sql);
+                    database.onWrite(sql);
+                    db.beginTransactionNonExclusive();
+                    try {
+                        for (List<Object> arguments : argumentsList) {
+                            command = new SqlCommand(sql, arguments);
+                            statement.clearBindings();
+                            command.bindTo(statement);
+                            // -1 if nothing was inserted (ON CONFLICT IGNORE)
+                            long id = statement.executeInsert();
+                            if (ids != null) {
+                                ids.add(id == -1 ? null : id);
+                            }
+                        }
+                        db.setTransactionSuccessful();
+                    } finally {
+                        db.endTransaction();
+                    }
+                } catch (Exception exception) {
+                    // The whole batch is rolled back, report the failing row
+                    handleException(exception, new ExecuteOperation(bgResult, command), database);
+                    return;
+                } finally {
+                    if (statement != null) {
+                        statement.close();
+                    }
+                }
+                bgResult.success(ids);
+            }
+        });
+    }
+
+    //
+    // Sqflite.commitPipeline
+    //
+    // {
+    // 'id': xxx,
+    // 'operations': [
+    //   { 'method': 'insert', 'sql': 'INSERT INTO Orders (total) VALUES (?)', 'arguments': [12] },
+    //   { 'method': 'insert', 'sql': 'INSERT INTO Item (orderId) VALUES (?)', 'arguments': [{'pipelineResult': 0}] },
+    //   { 'method': 'query', 'sql': 'SELECT * FROM Item WHERE orderId = ?', 'arguments': [{'pipelineResult': 0}] }
+    // ],
+    // 'noResult': false
+    // }
+    // Same operations and results as a batch but all run in a single task and transaction
+    // (unless the database is already in a transaction), stopping and rolling back at the first error
+    private void onPipelineCall(final MethodCall call, Result result) {
+
+        final Database database = getDatabaseOrError(call, result);
+        if (database == null) {
+            return;
+        }
+        final BgResult bgResult = new BgResult(result);
+        post(database, new Runnable() {
+            @Override
+            public void run() {
+                boolean noResult = Boolean.TRUE.equals(call.argument(PARAM_NO_RESULT));
+                List<Map<String, Object>> operations = call.argument(PARAM_OPERATIONS);
+                if (operations == null) {
+                    operations = new ArrayList<>();
+                }
+                List<Map<String, Object>> results = new ArrayList<>();
+                // Raw result of each operation to resolve the references
+                List<Object> values = new ArrayList<>(operations.size());
+
+                SQLiteDatabase db = database.getWritableDatabase();
+                // Part of the caller transaction if any
+                boolean ownTransaction = !db.inTransaction();
+                if (ownTransaction) {
+                    db.beginTransactionNonExclusive();
+                }
+                boolean success = false;
+                try {
+                    for (Map<String, Object> map : operations) {
+                        BatchOperation operation;
+                        try {
+                            operation = new BatchOperation(PipelineArguments.resolve(map, values), false);
+                        } catch (IllegalArgumentException e) {
+                            bgResult.error(ERROR_BAD_PARAM, e.getMessage(), null);
+                            return;
+                        }
+                        String method = operation.getMethod();
+                        long startNanos = System.nanoTime();
+                        boolean ok;
+                        switch (method) {
+                            case METHOD_EXECUTE:
+                                ok = execute(database, operation);
+                                break;
+                            case METHOD_INSERT:
+                                ok = insert(database, operation);
+                                break;
+                            case METHOD_QUERY:
+                                ok = query(database, operation);
+                                break;
+                            case METHOD_UPDATE:
+                                ok = update(database, operation);
+                                break;
+                            default:
+                                bgResult.error(ERROR_BAD_PARAM, "Pipeline method '" + method + "' not supported", null);
+                                return;
+                        }
+                        if (!ok) {
+                            operation.handleError(bgResult);
+                            return;
+                        }
+                        if (METHOD_INSERT.equals(method) || METHOD_UPDATE.equals(method)) {
+                            addExecutionMetrics(operation.getSqlCommand(), startNanos, 0, 0);
+                        }
+                        values.add(operation.getResult());
+                        if (!noResult) {
+                            operation.handleSuccess(results);
+                        }
+                    }
+                    if (ownTransaction) {
+                        db.setTransactionSuccessful();
+                    }
+                    success = true;
+                } finally {
+                    if (ownTransaction) {
+                        db.endTransaction();
+                        if (!success) {
+                            // Rolled back
+                            database.onWrite("ROLLBACK");
+                        }
+                    }
+                }
+                if (noResult) {
+                    bgResult.success(null);
+                } else {
+                    bgResult.success(results);
+                }
+            }
+        });
+    }
+
     // Return true on success
     private boolean execute(Database database, final Operation operation) {
+        long startNanos = System.nanoTime();
         if (!executeOrError(database, operation)) {
             return false;
         }
+        addExecutionMetrics(operation.getSqlCommand(), startNanos, 0, 0);
         operation.success(null);
         return true;
     }
 
     // Return true on success
     private boolean insert(Database database, final Operation operation) {
+        SqlCommand command = operation.getSqlCommand();
+        SQLiteStatement statement;
+        try {
+            // Compiling or binding fails on invalid sql or arguments
+            statement = database.getCachedStatement(command);
+        } catch (Exception exception) {
+            handleException(exception, operation, database);
+            return false;
+        }
+        if (statement != null) {
+            if (Debug.LOGV) {
+                Log.d(TAG, "[" + database.getThreadLogTag() + "] " + command);
+            }
+            try {
+                // -1 if nothing was inserted (ON CONFLICT IGNORE)
+                database.onWrite(command.getSql());
+                final long id = statement.executeInsert();
+                if (operation.getNoResult()) {
+                    operation.success(null);
+                } else if (id == -1) {
+                    if (Debug.LOGV) {
+                        Log.d(TAG, "no changes");
+                    }
+                    operation.success(null);
+                } else {
+                    if (Debug.LOGV) {
+                        Log.d(TAG, "inserted " + id);
+                    }
+                    operation.success(id);
+                }
+                return true;
+            } catch (Exception exception) {
+                handleException(exception, operation, database);
+                return false;
+            }
+        }
         if (!executeOrError(database, operation)) {
             return false;
         }
@@ -420,50 +787,66 @@ public class SqflitePlugin implements MethodCallHandler {
 
     // Return true on success
     private boolean query(Database database, final Operation operation) {
-        SqlCommand command = operation.getSqlCommand();
+        return query(database, operation, null);
+    }
 
-        List<Map<String, Object>> results = new ArrayList<>();
-        Map<String, Object> newResults = null;
-        List<List<Object>> rows = null;
-        int newColumnCount = 0;
+    // readConnection: read only connection to use, null for the primary connection
+    // Return true on success
+    private boolean query(Database database, final Operation operation, ReadConnection readConnection) {
+        SqlCommand command = operation.getSqlCommand();
+        // Writes can be run as queries too (INSERT ... RETURNING, PRAGMA), same as execute
+        if (readConnection == null && command.getSql() != null
+                && DatabaseUtils.getSqlStatementType(command.getSql()) != DatabaseUtils.STATEMENT_SELECT) {
+            database.onWrite(command.getSql());
+        }
+        Integer cursorPageSize = operation.getArgument(PARAM_CURSOR_PAGE_SIZE);
+        boolean columnar = Boolean.TRUE.equals(operation.getArgument(PARAM_COLUMNAR));
+        if (cursorPageSize != null) {
+            return queryWithCursor(database, operation, cursorPageSize, columnar);
+        }
+        boolean queryAsMapList = QUERY_AS_MAP_LIST;
+        long startNanos = System.nanoTime();
         if (Debug.LOGV) {
             Log.d(TAG, "[" + Thread.currentThread() + "] " + command);
         }
         Cursor cursor = null;
-        boolean queryAsMapList = QUERY_AS_MAP_LIST;
         try {
-            // For query we sanitize as it only takes String which does not work
-            // for references. Simply embed the int/long into the query itself
-            command = command.sanitizeForQuery();
-
-            cursor = database.getReadableDatabase().rawQuery(command.getSql(), command.getQuerySqlArguments());
-            while (cursor.moveToNext()) {
-                if (queryAsMapList) {
-                    Map<String, Object> map = cursorRowToMap(cursor);
+            QueryResultCache.Key cacheKey = null;
+            if (database.queryResultCache != null) {
+                database.checkQueryResultCacheSchema();
+                cacheKey = database.queryResultCache.getKey(command,
+                        columnar ? PARAM_COLUMNAR : queryAsMapList ? PARAM_QUERY_AS_MAP_LIST : "");
+                Object cachedResult = cacheKey != null ? database.queryResultCache.get(cacheKey) : null;
+                if (cachedResult != null) {
                     if (Debug.LOGV) {
-                        Log.d(TAG, SqflitePlugin.toString(map));
-                    }
-                    results.add(map);
-                } else {
-                    if (newResults == null) {
-                        rows = new ArrayList<>();
-                        newResults = new HashMap<>();
-                        newColumnCount = cursor.getColumnCount();
-                        newResults.put("columns", Arrays.asList(cursor.getColumnNames()));
-                        newResults.put("rows", rows);
+                        Log.d(TAG, "cached result");
                     }
-                    rows.add(cursorRowToList(cursor, newColumnCount));
+                    addExecutionMetrics(command, startNanos, 0, 0);
+                    operation.success(cachedResult);
+                    return true;
                 }
             }
-            if (queryAsMapList) {
-                operation.success(results);
+
+            cursor = rawQuery(readConnection != null ? readConnection.sqliteDatabase
+                    : database.getReadableDatabase(), command);
+            long readStartNanos = System.nanoTime();
+            Object result;
+            if (columnar) {
+                result = ColumnarResult.fromCursor(cursor, Integer.MAX_VALUE).toMap();
+            } else if (queryAsMapList) {
+                result = cursorToMapList(cursor);
             } else {
-                // Handle empty
-                if (newResults == null) {
-                    newResults = new HashMap<>();
-                }
-                operation.success(newResults);
+                result = cursorToResult(cursor);
+            }
+            if (METRICS != null) {
+                addExecutionMetrics(command, startNanos, cursor.getCount(), System.nanoTime() - readStartNanos);
             }
+            // A write on the primary connection could have invalidated the entry while
+            // reading on another connection, only cache results read on the primary one
+            if (cacheKey != null && readConnection == null) {
+                database.queryResultCache.put(cacheKey, result);
+            }
+            operation.success(result);
             return true;
 
         } catch (Exception exception) {
@@ -476,6 +859,168 @@ public class SqflitePlugin implements MethodCallHandler {
         }
     }
 
+    private static List<Map<String, Object>> cursorToMapList(Cursor cursor) {
+        List<Map<String, Object>> results = new ArrayList<>();
+        while (cursor.moveToNext()) {
+            Map<String, Object> map = cursorRowToMap(cursor);
+            if (Debug.LOGV) {
+                Log.d(TAG, SqflitePlugin.toString(map));
+            }
+            results.add(map);
+        }
+        return results;
+    }
+
+    // {
+    // 'columns': ['name', 'value'],
+    // 'rows': [['item 1', 1], ['item 2', 2]]
+    // }
+    // empty map if there are no rows
+    private static Map<String, Object> cursorToResult(Cursor cursor) {
+        Map<String, Object> newResults = null;
+        List<List<Object>> rows = null;
+        int newColumnCount = 0;
+        while (cursor.moveToNext()) {
+            if (newResults == null) {
+                rows = new ArrayList<>();
+                newResults = new HashMap<>();
+                newColumnCount = cursor.getColumnCount();
+                newResults.put("columns", Arrays.asList(cursor.getColumnNames()));
+                newResults.put("rows", rows);
+            }
+            rows.add(cursorRowToList(cursor, newColumnCount));
+        }
+        // Handle empty
+        if (newResults == null) {
+            newResults = new HashMap<>();
+        }
+        return newResults;
+    }
+
+    // Read up to pageSize rows from the current cursor position
+    // {
+    // 'columns': ['name', 'value'],
+    // 'rows': [['item 1', 1], ['item 2', 2]]
+    // }
+    // or the ColumnarResult format
+    private static Map<String, Object> cursorPageToResult(Cursor cursor, int pageSize, boolean columnar) {
+        if (columnar) {
+            return ColumnarResult.fromCursor(cursor, pageSize).toMap();
+        }
+        Map<String, Object> result = new HashMap<>();
+        List<List<Object>> rows = new ArrayList<>();
+        int columnCount = cursor.getColumnCount();
+        result.put("columns", Arrays.asList(cursor.getColumnNames()));
+        result.put("rows", rows);
+        while (rows.size() < pageSize && cursor.moveToNext()) {
+            rows.add(cursorRowToList(cursor, columnCount));
+        }
+        return result;
+    }
+
+    // Query returning the first page and a 'cursorId' if more rows are available
+    // Return true on success
+    private boolean queryWithCursor(Database database, final Operation operation, int pageSize, boolean columnar) {
+        SqlCommand command = operation.getSqlCommand();
+        if (Debug.LOGV) {
+            Log.d(TAG, "[" + database.getThreadLogTag() + "] " + command + " (page " + pageSize + ")");
+        }
+        Cursor cursor = null;
+        try {
+            cursor = rawQuery(database.getReadableDatabase(), command);
+            QueryCursor queryCursor = new QueryCursor(command, cursor, pageSize, columnar);
+            Map<String, Object> result = queryCursorPage(queryCursor);
+            if (queryCursor.hasMore) {
+                int cursorId = database.addQueryCursor(queryCursor);
+                result.put(PARAM_CURSOR_ID, cursorId);
+                // Kept open for the next pages
+                cursor = null;
+            }
+            operation.success(result);
+            return true;
+        } catch (Exception exception) {
+            handleException(exception, operation, database);
+            return false;
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+    }
+
+    // Read the next page of a paged query from its cursor, kept open between pages.
+    // The pages are read forward through the cursor window, the query is only stepped again
+    // from the first row when a page goes past the window (a window holds many pages). Rows
+    // inserted or deleted between two pages can shift the next pages after such a refill.
+    private Map<String, Object> queryCursorPage(QueryCursor queryCursor) {
+        Cursor cursor = queryCursor.cursor;
+        long startNanos = System.nanoTime();
+        int startPosition = cursor.getPosition();
+        Map<String, Object> result = cursorPageToResult(cursor, queryCursor.pageSize, queryCursor.columnar);
+        // Last row read, the count is read once with the first window
+        int position = Math.min(cursor.getPosition(), cursor.getCount() - 1);
+        if (METRICS != null) {
+            addExecutionMetrics(queryCursor.command, startNanos, position - startPosition, System.nanoTime() - startNanos);
+        }
+        queryCursor.hasMore = position < cursor.getCount() - 1;
+        return result;
+    }
+
+    //
+    // Sqflite.queryCursorNext
+    //
+    // {
+    // 'id': xxx,
+    // 'cursorId': xxx,
+    // 'cursorPageSize': 100, // optional, defaults to the page size of the query
+    // 'cancel': false // true to close the cursor
+    // }
+    // The cursor is closed once all rows are read, the result has no 'cursorId' then
+    private void onQueryCursorNextCall(final MethodCall call, Result result) {
+
+        final Database database = getDatabaseOrError(call, result);
+        if (database == null) {
+            return;
+        }
+        final BgResult bgResult = new BgResult(result);
+        post(database, new Runnable() {
+            @Override
+            public void run() {
+                int cursorId = call.argument(PARAM_CURSOR_ID);
+                Integer pageSize = call.argument(PARAM_CURSOR_PAGE_SIZE);
+                boolean cancel = Boolean.TRUE.equals(call.argument(PARAM_CANCEL));
+                QueryCursor queryCursor = database.getQueryCursor(cursorId);
+                if (queryCursor == null) {
+                    bgResult.error(Constant.SQLITE_ERROR, Constant.ERROR_CURSOR_NOT_FOUND + " " + cursorId, null);
+                    return;
+                }
+                if (cancel) {
+                    database.closeQueryCursor(cursorId);
+                    bgResult.success(null);
+                    return;
+                }
+                if (pageSize != null) {
+                    queryCursor.pageSize = pageSize;
+                }
+                if (Debug.LOGV) {
+                    Log.d(TAG, "[" + database.getThreadLogTag() + "] cursor " + cursorId + " next " + queryCursor.pageSize);
+                }
+                try {
+                    Map<String, Object> cursorResult = queryCursorPage(queryCursor);
+                    if (!queryCursor.hasMore) {
+                        database.closeQueryCursor(cursorId);
+                    } else {
+                        cursorResult.put(PARAM_CURSOR_ID, cursorId);
+                    }
+                    bgResult.success(cursorResult);
+                } catch (Exception exception) {
+                    database.closeQueryCursor(cursorId);
+                    bgResult.error(Constant.SQLITE_ERROR, exception.getMessage(), null);
+                }
+            }
+        });
+    }
+
     //
     // Insert
     //
@@ -485,12 +1030,15 @@ public class SqflitePlugin implements MethodCallHandler {
         if (database == null) {
             return;
         }
-        final BgResult bgResult = new BgResult(result);
-        handler.post(new Runnable() {
+        final BgResult bgResult = new BgResult(result, call.<String>argument(PARAM_SQL));
+        post(database, new Runnable() {
             @Override
             public void run() {
                 MethodCallOperation operation = new MethodCallOperation(call, bgResult);
-                insert(database, operation);
+                long startNanos = System.nanoTime();
+                if (insert(database, operation)) {
+                    addExecutionMetrics(operation.getSqlCommand(), startNanos, 0, 0);
+                }
             }
 
         });
@@ -505,14 +1053,15 @@ public class SqflitePlugin implements MethodCallHandler {
         if (database == null) {
             return;
         }
-        final BgResult bgResult = new BgResult(result);
-        handler.post(new Runnable() {
+        final BgResult bgResult = new BgResult(result, call.<String>argument(PARAM_SQL));
+        post(database, new Runnable() {
             @Override
             public void run() {
-
+                long startNanos = System.nanoTime();
                 if (executeOrError(database, call, bgResult) == null) {
                     return;
                 }
+                addExecutionMetrics(getSqlCommand(call), startNanos, 0, 0);
                 bgResult.success(null);
             }
         });
@@ -520,6 +1069,36 @@ public class SqflitePlugin implements MethodCallHandler {
 
     // Return true on success
     private boolean update(Database database, final Operation operation) {
+        SqlCommand command = operation.getSqlCommand();
+        SQLiteStatement statement;
+        try {
+            // Compiling or binding fails on invalid sql or arguments
+            statement = database.getCachedStatement(command);
+        } catch (Exception exception) {
+            handleException(exception, operation, database);
+            return false;
+        }
+        if (statement != null) {
+            if (Debug.LOGV) {
+                Log.d(TAG, "[" + database.getThreadLogTag() + "] " + command);
+            }
+            try {
+                database.onWrite(command.getSql());
+                final int changed = statement.executeUpdateDelete();
+                if (operation.getNoResult()) {
+                    operation.success(null);
+                } else {
+                    if (Debug.LOGV) {
+                        Log.d(TAG, "changed " + changed);
+                    }
+                    operation.success(changed);
+                }
+                return true;
+            } catch (Exception exception) {
+                handleException(exception, operation, database);
+                return false;
+            }
+        }
         if (!executeOrError(database, operation)) {
             return false;
         }
@@ -556,27 +1135,285 @@ public class SqflitePlugin implements MethodCallHandler {
     }
 
     //
-    // Sqflite.update
-    //
-    private void onUpdateCall(final MethodCall call, Result result) {
-
-        final Database database = getDatabaseOrError(call, result);
-        if (database == null) {
-            return;
-        }
-        final BgResult bgResult = new BgResult(result);
-        handler.post(new Runnable() {
-            @Override
-            public void run() {
-                MethodCallOperation operation = new MethodCallOperation(call, bgResult);
-                update(database, operation);
-            }
-        });
+    // "Test" for Test
+    private static String quoteIdentifier(String name) {
+        return "\"" + name.replace("\"", "\"\"") + "\"";
     }
 
-    private void handleException(Exception exception, Operation operation, Database database) {
-        if (exception instanceof SQLiteCantOpenDatabaseException) {
-            operation.error(Constant.SQLITE_ERROR, Constant.ERROR_OPEN_FAILED + " " + database.path, null);
+    // {
+    // 'rowCount': 1000,
+    // 'byteCount': 123456
+    // }
+    private static Map<String, Object> makeTableResult(long rowCount, long byteCount) {
+        Map<String, Object> result = new HashMap<>();
+        result.put(PARAM_ROW_COUNT, rowCount);
+        result.put(PARAM_BYTE_COUNT, byteCount);
+        return result;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                Log.e(TAG, "close error: " + e);
+            }
+        }
+    }
+
+    //
+    // Sqflite.exportTable
+    //
+    // {
+    // 'id': xxx,
+    // 'table': 'Test',
+    // 'file': '/path/to/test.table',
+    // 'progressId': 1 // optional, see TableProgress
+    // }
+    // Rows are streamed to the file through a single chunk buffer, see TableFile for the format
+    // Rows are read by pages of EXPORT_PAGE_SIZE in rowid order, a single cursor would re-run the
+    // query from the start each time its window is filled (tables without a usable rowid still are)
+    // Result: { 'rowCount': 1000, 'byteCount': 123456 }
+    private void onExportTableCall(final MethodCall call, Result result) {
+
+        final Database database = getDatabaseOrError(call, result);
+        if (database == null) {
+            return;
+        }
+        final BgResult bgResult = new BgResult(result);
+        final TableProgress progress = new TableProgress(database.id, call.<Integer>argument(PARAM_PROGRESS_ID));
+        post(database, new Runnable() {
+            @Override
+            public void run() {
+                String table = call.argument(PARAM_TABLE);
+                String file = call.argument(PARAM_FILE);
+                String sql = "SELECT * FROM " + quoteIdentifier(table);
+                if (Debug.LOGV) {
+                    Log.d(TAG, "[" + database.getThreadLogTag() + "] export " + table + " to " + file);
+                }
+                SQLiteDatabase db = database.getReadableDatabase();
+                Cursor cursor = null;
+                FileOutputStream output = null;
+                try {
+                    // The rowid is the first column of the pages, not exported
+                    String rowidName = getRowidName(db, table);
+                    boolean paged = rowidName != null;
+                    int firstColumn = paged ? 1 : 0;
+                    String pageSql = "SELECT " + rowidName + ", * FROM " + quoteIdentifier(table);
+                    output = new FileOutputStream(file);
+                    TableFile.Writer writer = new TableFile.Writer(output.getChannel(), TableFile.DEFAULT_CHUNK_SIZE);
+                    long rowCount = 0;
+                    long lastRowid = 0;
+                    for (boolean firstPage = true; ; firstPage = false) {
+                        if (paged) {
+                            sql = pageSql + (firstPage ? "" : " WHERE " + rowidName + " > " + lastRowid)
+                                    + " ORDER BY " + rowidName + " LIMIT " + EXPORT_PAGE_SIZE;
+                        }
+                        cursor = db.rawQuery(sql, null);
+                        int columnCount = cursor.getColumnCount();
+                        if (firstPage) {
+                            String[] columns = cursor.getColumnNames();
+                            writer.writeColumns(Arrays.copyOfRange(columns, firstColumn, columns.length));
+                        }
+                        int pageRowCount = 0;
+                        while (cursor.moveToNext()) {
+                            if (paged) {
+                                lastRowid = cursor.getLong(0);
+                            }
+                            writer.startRow();
+                            for (int i = firstColumn; i < columnCount; i++) {
+                                switch (cursor.getType(i)) {
+                                    case Cursor.FIELD_TYPE_INTEGER:
+                                        writer.writeLong(cursor.getLong(i));
+                                        break;
+                                    case Cursor.FIELD_TYPE_FLOAT:
+                                        writer.writeDouble(cursor.getDouble(i));
+                                        break;
+                                    case Cursor.FIELD_TYPE_STRING:
+                                        writer.writeText(cursor.getString(i));
+                                        break;
+                                    case Cursor.FIELD_TYPE_BLOB:
+                                        writer.writeBlob(cursor.getBlob(i));
+                                        break;
+                                    default:
+                                        writer.writeNull();
+                                        break;
+                                }
+                            }
+                            pageRowCount++;
+                            progress.onRow(++rowCount, writer.getByteCount());
+                        }
+                        cursor.close();
+                        cursor = null;
+                        if (!paged || pageRowCount < EXPORT_PAGE_SIZE) {
+                            break;
+                        }
+                    }
+                    writer.finish();
+                    bgResult.success(makeTableResult(rowCount, writer.getByteCount()));
+                } catch (Exception exception) {
+                    handleException(exception, new ExecuteOperation(bgResult, new SqlCommand(sql, null)), database);
+                } finally {
+                    if (cursor != null) {
+                        cursor.close();
+                    }
+                    closeQuietly(output);
+                }
+            }
+        });
+    }
+
+    // The first of rowid, _rowid_ and oid that is not the name of a column of the table
+    // null for WITHOUT ROWID tables, views (rowid is null or not available) and tables
+    // having the 3 as columns
+    private static String getRowidName(SQLiteDatabase db, String table) {
+        if (DatabaseUtils.longForQuery(db, "SELECT COUNT(*) FROM sqlite_master WHERE type = 'table' AND name = ?",
+                new String[]{table}) == 0) {
+            return null;
+        }
+        Set<String> columns = new HashSet<>();
+        Cursor cursor = db.rawQuery("PRAGMA table_info(" + quoteIdentifier(table) + ")", null);
+        try {
+            int nameIndex = cursor.getColumnIndex("name");
+            while (cursor.moveToNext()) {
+                columns.add(cursor.getString(nameIndex).toLowerCase());
+            }
+        } finally {
+            cursor.close();
+        }
+        for (String rowidName : new String[]{"rowid", "_rowid_", "oid"}) {
+            if (!columns.contains(rowidName)) {
+                try {
+                    db.compileStatement("SELECT " + rowidName + " FROM " + quoteIdentifier(table) + " LIMIT 0").close();
+                    return rowidName;
+                } catch (SQLException e) {
+                    // WITHOUT ROWID
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    //
+    // Sqflite.importTable
+    //
+    // {
+    // 'id': xxx,
+    // 'table': 'Test',
+    // 'file': '/path/to/test.table',
+    // 'progressId': 1 // optional, see TableProgress
+    // }
+    // Rows of a file written by exportTable are inserted in a single transaction
+    // (the whole import is rolled back on error), columns are matched by name
+    // Result: { 'rowCount': 1000, 'byteCount': 123456 }
+    private void onImportTableCall(final MethodCall call, Result result) {
+
+        final Database database = getDatabaseOrError(call, result);
+        if (database == null) {
+            return;
+        }
+        final BgResult bgResult = new BgResult(result);
+        final TableProgress progress = new TableProgress(database.id, call.<Integer>argument(PARAM_PROGRESS_ID));
+        post(database, new Runnable() {
+            @Override
+            public void run() {
+                String table = call.argument(PARAM_TABLE);
+                String file = call.argument(PARAM_FILE);
+                if (Debug.LOGV) {
+                    Log.d(TAG, "[" + database.getThreadLogTag() + "] import " + table + " from " + file);
+                }
+                String sql = null;
+                SQLiteDatabase db = database.getWritableDatabase();
+                SQLiteStatement statement = null;
+                FileInputStream input = null;
+                try {
+                    input = new FileInputStream(file);
+                    TableFile.Reader reader = new TableFile.Reader(input.getChannel(), TableFile.DEFAULT_CHUNK_SIZE);
+                    String[] columns = reader.readColumns();
+                    StringBuilder sb = new StringBuilder("INSERT INTO ").append(quoteIdentifier(table)).append(" (");
+                    for (int i = 0; i < columns.length; i++) {
+                        sb.append(i == 0 ? "" : ", ").append(quoteIdentifier(columns[i]));
+                    }
+                    sb.append(") VALUES (");
+                    for (int i = 0; i < columns.length; i++) {
+                        sb.append(i == 0 ? "?" : ", ?");
+                    }
+                    sql = sb.append(")").toString();
+
+                    statement = db.compileStatement(sql);
+                    database.onWrite(sql);
+                    long rowCount = 0;
+                    db.beginTransactionNonExclusive();
+                    try {
+                        while (reader.nextRow()) {
+                            statement.clearBindings();
+                            for (int i = 1; i <= columns.length; i++) {
+                                byte type = reader.nextType();
+                                switch (type) {
+                                    case TableFile.TYPE_NULL:
+                                        statement.bindNull(i);
+                                        break;
+                                    case TableFile.TYPE_INTEGER:
+                                        statement.bindLong(i, reader.readLong());
+                                        break;
+                                    case TableFile.TYPE_REAL:
+                                        statement.bindDouble(i, reader.readDouble());
+                                        break;
+                                    case TableFile.TYPE_TEXT:
+                                        statement.bindString(i, reader.readText());
+                                        break;
+                                    case TableFile.TYPE_BLOB:
+                                        statement.bindBlob(i, reader.readBlob());
+                                        break;
+                                    default:
+                                        throw new IOException("invalid value type " + type);
+                                }
+                            }
+                            statement.executeInsert();
+                            progress.onRow(++rowCount, reader.getByteCount());
+                        }
+                        db.setTransactionSuccessful();
+                    } finally {
+                        db.endTransaction();
+                    }
+                    bgResult.success(makeTableResult(rowCount, reader.getByteCount()));
+                } catch (Exception exception) {
+                    handleException(exception, new ExecuteOperation(bgResult, new SqlCommand(sql, null)), database);
+                } finally {
+                    if (statement != null) {
+                        statement.close();
+                    }
+                    closeQuietly(input);
+                }
+            }
+        });
+    }
+
+    // Sqflite.update
+    //
+    private void onUpdateCall(final MethodCall call, Result result) {
+
+        final Database database = getDatabaseOrError(call, result);
+        if (database == null) {
+            return;
+        }
+        final BgResult bgResult = new BgResult(result, call.<String>argument(PARAM_SQL));
+        post(database, new Runnable() {
+            @Override
+            public void run() {
+                MethodCallOperation operation = new MethodCallOperation(call, bgResult);
+                long startNanos = System.nanoTime();
+                if (update(database, operation)) {
+                    addExecutionMetrics(operation.getSqlCommand(), startNanos, 0, 0);
+                }
+            }
+        });
+    }
+
+    private void handleException(Exception exception, Operation operation, Database database) {
+        if (exception instanceof SQLiteCantOpenDatabaseException) {
+            operation.error(Constant.SQLITE_ERROR, Constant.ERROR_OPEN_FAILED + " " + database.path, null);
             return;
         } else if (exception instanceof SQLException) {
             operation.error(Constant.SQLITE_ERROR, exception.getMessage(), SqlErrorInfo.getMap(operation));
@@ -588,23 +1425,29 @@ public class SqflitePlugin implements MethodCallHandler {
     // {
     // 'id': xxx
     // 'recovered': true // if recovered only for single instance
+    // 'readConnectionCount': 4 // if queries can run concurrently (Android WAL mode)
     // }
-    static Map makeOpenResult(int databaseId, boolean recovered) {
+    static Map makeOpenResult(int databaseId, boolean recovered, int readConnectionCount) {
         Map<String, Object> result = new HashMap<>();
         result.put(PARAM_ID, databaseId);
         if (recovered) {
             result.put(PARAM_RECOVERED, true);
         }
+        if (readConnectionCount > 0) {
+            result.put(PARAM_READ_CONNECTION_COUNT, readConnectionCount);
+        }
         return result;
     }
 
     //
     // Sqflite.open
     //
-    private void onOpenDatabaseCall(MethodCall call, Result result) {
-        String path = call.argument(PARAM_PATH);
-        Boolean readOnly = call.argument(PARAM_READ_ONLY);
-        boolean inMemory = isInMemoryPath(path);
+    // The database is registered right away but opened on its worker thread (the first task
+    // of its queue), the result is sent once opened and configured
+    private void onOpenDatabaseCall(final MethodCall call, Result result) {
+        final String path = call.argument(PARAM_PATH);
+        final Boolean readOnly = call.argument(PARAM_READ_ONLY);
+        final boolean inMemory = isInMemoryPath(path);
 
         boolean singleInstance = !Boolean.FALSE.equals(call.argument(PARAM_SINGLE_INSTANCE)) && !inMemory;
 
@@ -612,17 +1455,33 @@ public class SqflitePlugin implements MethodCallHandler {
         // DO NOT TRY TO LOAD existing instance, the database has been closed
 
 
-        if (singleInstance) {
-            // Look for in memory instance
-            synchronized (databaseMapLocker) {
+        final BgResult bgResult = new BgResult(result);
+        final Database database;
+        synchronized (databaseMapLocker) {
+            if (singleInstance) {
+                // Look for in memory instance
                 if (Debug.EXTRA_LOGV) {
                     Log.d(Constant.TAG, "Look for " + path + " in " + _singleInstancesByPath.keySet());
                 }
                 Integer databaseId = _singleInstancesByPath.get(path);
                 if (databaseId != null) {
-                    Database database = databaseMap.get(databaseId);
-                    if (database != null) {
-                        if (!database.sqliteDatabase.isOpen()) {
+                    final Database existingDatabase = databaseMap.get(databaseId);
+                    if (existingDatabase != null) {
+                        if (existingDatabase.sqliteDatabase == null) {
+                            // Still opening, reply after its open task
+                            post(existingDatabase, new Runnable() {
+                                @Override
+                                public void run() {
+                                    if (existingDatabase.sqliteDatabase == null) {
+                                        bgResult.error(Constant.SQLITE_ERROR, Constant.ERROR_OPEN_FAILED + " " + path, null);
+                                    } else {
+                                        bgResult.success(makeOpenResult(existingDatabase.id, true,
+                                                existingDatabase.getReadConnectionCount()));
+                                    }
+                                }
+                            });
+                            return;
+                        } else if (!existingDatabase.sqliteDatabase.isOpen()) {
                             if (Debug.LOGV) {
                                 Log.d(Constant.TAG, "[" + Thread.currentThread() + "] single instance database of " + path + " not opened");
                             }
@@ -631,48 +1490,20 @@ public class SqflitePlugin implements MethodCallHandler {
                             if (Debug.LOGV) {
                                 Log.d(Constant.TAG, "[" + Thread.currentThread() + "] re-opened single instance " + databaseId + " " + path + " total open count (" + databaseOpenCount + ")");
                             }
-                            result.success(makeOpenResult(databaseId, true));
+                            result.success(makeOpenResult(databaseId, true, existingDatabase.getReadConnectionCount()));
                             return;
                         }
                     }
                 }
             }
-        }
-
 
-        if (!inMemory) {
-            File file = new File(path);
-            File directory = new File(file.getParent());
-            if (!directory.exists()) {
-                if (!directory.mkdirs()) {
-                    if (!directory.exists()) {
-                        result.error(Constant.SQLITE_ERROR, Constant.ERROR_OPEN_FAILED + " " + path, null);
-                        return;
-                    }
-                }
+            int databaseId = ++this.databaseId;
+            database = new Database(context, path, databaseId, singleInstance, STATEMENT_CACHE_SIZE);
+            Integer queryCacheSize = call.argument(PARAM_QUERY_CACHE_SIZE);
+            if (queryCacheSize != null && queryCacheSize > 0) {
+                database.queryResultCache = new QueryResultCache(queryCacheSize);
             }
-        }
-
-        int databaseId;
-        synchronized (databaseMapLocker) {
-            databaseId = ++this.databaseId;
-        }
-        Database database = new Database(context, path, databaseId, singleInstance);
-        // force opening
-        try {
-            if (Boolean.TRUE.equals(readOnly)) {
-                database.openReadOnly();
-            } else {
-                database.open();
-            }
-        } catch (Exception e) {
-            MethodCallOperation operation = new MethodCallOperation(call, result);
-            handleException(e, operation, database);
-            return;
-        }
 
-        //SQLiteDatabase sqLiteDatabase = SQLiteDatabase.openDatabase(path, null, 0);
-        synchronized (databaseMapLocker) {
             if (databaseOpenCount++ == 0) {
                 handlerThread = new HandlerThread("Sqflite", SqflitePlugin.THREAD_PRIORITY);
                 handlerThread.start();
@@ -687,12 +1518,97 @@ public class SqflitePlugin implements MethodCallHandler {
                 _singleInstancesByPath.put(path, databaseId);
             }
             databaseMap.put(databaseId, database);
-            if (Debug.LOGV) {
-                Log.d(TAG, "[" + Thread.currentThread() + "] opened " + databaseId + " " + path + " total open count (" + databaseOpenCount + ")");
+        }
+        if (THREAD_PER_DATABASE) {
+            database.startThread(SqflitePlugin.THREAD_PRIORITY);
+        }
+
+        post(database, new Runnable() {
+            @Override
+            public void run() {
+                if (!inMemory) {
+                    File file = new File(path);
+                    File directory = new File(file.getParent());
+                    if (!directory.exists()) {
+                        if (!directory.mkdirs()) {
+                            if (!directory.exists()) {
+                                removeDatabase(database);
+                                bgResult.error(Constant.SQLITE_ERROR, Constant.ERROR_OPEN_FAILED + " " + path, null);
+                                return;
+                            }
+                        }
+                    }
+                }
+
+                // force opening
+                try {
+                    if (Boolean.TRUE.equals(readOnly)) {
+                        database.openReadOnly();
+                    } else {
+                        database.open();
+                    }
+                    database.configure(call, Boolean.TRUE.equals(readOnly),
+                            READ_CONNECTION_COUNT > 0 && !inMemory && !Boolean.TRUE.equals(readOnly));
+                } catch (Exception e) {
+                    MethodCallOperation operation = new MethodCallOperation(call, bgResult);
+                    handleException(e, operation, database);
+                    database.closeReadConnections();
+                    if (database.sqliteDatabase != null) {
+                        database.sqliteDatabase.close();
+                        database.sqliteDatabase = null;
+                    }
+                    removeDatabase(database);
+                    return;
+                }
+                // Readers only see committed data without blocking the writer in WAL mode
+                if (READ_CONNECTION_COUNT > 0 && database.walEnabled) {
+                    try {
+                        database.openReadConnections(READ_CONNECTION_COUNT, SqflitePlugin.THREAD_PRIORITY);
+                    } catch (Exception e) {
+                        Log.e(TAG, "open read connections error: " + e);
+                        database.closeReadConnections();
+                    }
+                }
+                if (Debug.LOGV) {
+                    Log.d(TAG, "[" + database.getThreadLogTag() + "] opened " + database.id + " " + path + " total open count (" + databaseOpenCount + ")");
+                }
+
+                bgResult.success(makeOpenResult(database.id, false, database.getReadConnectionCount()));
+            }
+        });
+    }
+
+    // Unregister a database once closed or failed to open, stop the shared thread if not used anymore
+    // Does nothing if already removed (closed while failing to open)
+    private void removeDatabase(Database database) {
+        synchronized (databaseMapLocker) {
+            removeSingleInstance(database);
+            if (databaseMap.remove(database.id) == null) {
+                return;
+            }
+            if (--databaseOpenCount == 0) {
+                if (Debug.LOGV) {
+                    Log.d(TAG, "stopping thread" + handlerThread);
+                }
+                // Pending tasks still run and reply
+                handlerThread.quitSafely();
+                handlerThread = null;
+                handler = null;
             }
         }
+        // Once unregistered so that no open waits on it anymore, the already queued ones
+        // still run and reply
+        database.stopThread();
+    }
 
-        result.success(makeOpenResult(databaseId, false));
+    // Remove from single instance map unless already replaced by a new open
+    private void removeSingleInstance(Database database) {
+        if (database.singleInstance) {
+            Integer databaseId = _singleInstancesByPath.get(database.path);
+            if (databaseId != null && databaseId == database.id) {
+                _singleInstancesByPath.remove(database.path);
+            }
+        }
     }
 
     //
@@ -700,36 +1616,28 @@ public class SqflitePlugin implements MethodCallHandler {
     //
     private void onCloseDatabaseCall(MethodCall call, Result result) {
         int databaseId = call.argument(PARAM_ID);
-        Database database = getDatabaseOrError(call, result);
+        final Database database = getDatabaseOrError(call, result);
         if (database == null) {
             return;
         }
         if (Debug.LOGV) {
             Log.d(TAG, "[" + Thread.currentThread() + "] closing " + databaseId + " " + database.path + " total open count (" + databaseOpenCount + ")");
         }
-        String path = database.path;
-        if (database.singleInstance) {
-            // Remove from single instance map
-            synchronized (databaseMapLocker) {
-                _singleInstancesByPath.remove(path);
-            }
-        }
-        database.close();
-
         synchronized (databaseMapLocker) {
-            databaseMap.remove(databaseId);
-            if (--databaseOpenCount == 0) {
-                if (Debug.LOGV) {
-                    Log.d(TAG, "stopping thread" + handlerThread);
-                }
-                handlerThread.quit();
-                handlerThread = null;
-                handler = null;
-            }
+            // A new open of the same path does not reuse the closing database
+            removeSingleInstance(database);
         }
-
-
-        result.success(null);
+        final BgResult bgResult = new BgResult(result);
+        // On the database thread after the pending tasks, the open one included
+        post(database, new Runnable() {
+            @Override
+            public void run() {
+                database.closeReadConnections();
+                database.close();
+                removeDatabase(database);
+                bgResult.success(null);
+            }
+        });
     }
 
     @Override
@@ -755,6 +1663,10 @@ public class SqflitePlugin implements MethodCallHandler {
                 onQueryCall(call, result);
                 break;
             }
+            case METHOD_QUERY_CURSOR_NEXT: {
+                onQueryCursorNextCall(call, result);
+                break;
+            }
             case METHOD_INSERT: {
                 onInsertCall(call, result);
                 break;
@@ -775,6 +1687,14 @@ public class SqflitePlugin implements MethodCallHandler {
                 onBatchCall(call, result);
                 break;
             }
+            case METHOD_BATCH_INSERT: {
+                onBatchInsertCall(call, result);
+                break;
+            }
+            case METHOD_PIPELINE: {
+                onPipelineCall(call, result);
+                break;
+            }
             case METHOD_OPTIONS: {
                 onOptionsCall(call, result);
                 break;
@@ -783,6 +1703,22 @@ public class SqflitePlugin implements MethodCallHandler {
                 onGetDatabasesPath(call, result);
                 break;
             }
+            case METHOD_DEBUG: {
+                onDebugCall(call, result);
+                break;
+            }
+            case METHOD_GET_METRICS: {
+                onGetMetricsCall(call, result);
+                break;
+            }
+            case METHOD_EXPORT_TABLE: {
+                onExportTableCall(call, result);
+                break;
+            }
+            case METHOD_IMPORT_TABLE: {
+                onImportTableCall(call, result);
+                break;
+            }
             default:
                 result.notImplemented();
                 break;
@@ -798,9 +1734,81 @@ public class SqflitePlugin implements MethodCallHandler {
         if (threadPriority != null) {
             THREAD_PRIORITY = (Integer) threadPriority;
         }
+        Object threadPerDatabase = call.argument(Constant.PARAM_THREAD_PER_DATABASE);
+        if (threadPerDatabase != null) {
+            // Only applies to databases opened afterwards
+            THREAD_PER_DATABASE = Boolean.TRUE.equals(threadPerDatabase);
+        }
+        Object statementCacheSize = call.argument(Constant.PARAM_STATEMENT_CACHE_SIZE);
+        if (statementCacheSize != null) {
+            // Only applies to databases opened afterwards
+            STATEMENT_CACHE_SIZE = (Integer) statementCacheSize;
+        }
+        Object readConnectionCount = call.argument(Constant.PARAM_READ_CONNECTION_COUNT_OPTION);
+        if (readConnectionCount != null) {
+            // Only applies to databases opened afterwards
+            READ_CONNECTION_COUNT = (Integer) readConnectionCount;
+        }
+        Object metrics = call.argument(Constant.PARAM_METRICS);
+        if (metrics != null) {
+            if (!Boolean.TRUE.equals(metrics)) {
+                METRICS = null;
+            } else if (METRICS == null) {
+                METRICS = new SqlMetrics();
+            }
+        }
         result.success(null);
     }
 
+    // {
+    // 'databases': {
+    //   '1': {
+    //     'path': xxx,
+    //     'singleInstance': true,
+    //     'thread': 'Sqflite-1', // when using a thread per database
+    //     'cursorCount': 0, // opened query cursors
+    //     'readConnections': [{ 'thread': 'Sqflite-1-read-0', 'count': 20 }], // queries run, WAL mode only
+    //     'queue': { 'depth': 0, 'maxDepth': 4, 'count': 200, 'averageWait': 0.3, 'maxWait': 12.5 }, // wait in ms
+    //     'queryCache': { 'size': 10, 'maxSize': 50, 'hitCount': 40, 'missCount': 10, 'hitRate': 0.8 }, // if enabled
+    //     'statementCache': { 'size': 3, 'maxSize': 25, 'hitCount': 120, 'missCount': 3, 'hitRate': 0.97 }
+    //   }
+    // }
+    // }
+    void onDebugCall(final MethodCall call, Result result) {
+        Map<String, Object> databasesInfo = new HashMap<>();
+        synchronized (databaseMapLocker) {
+            for (Database database : databaseMap.values()) {
+                databasesInfo.put(Integer.toString(database.id), database.getDebugInfo());
+            }
+        }
+        Map<String, Object> info = new HashMap<>();
+        info.put(PARAM_DATABASES, databasesInfo);
+        result.success(info);
+    }
+
+    //
+    // Sqflite.getMetrics
+    //
+    // {
+    // 'reset': true // optional, to clear the statistics once read
+    // }
+    // Result is null if metrics are not enabled (androidMetrics option), see SqlMetrics for the format
+    void onGetMetricsCall(final MethodCall call, Result result) {
+        SqlMetrics metrics = METRICS;
+        if (metrics == null) {
+            result.success(null);
+            return;
+        }
+        Map<String, Object> info;
+        synchronized (metrics) {
+            info = metrics.toMap();
+            if (Boolean.TRUE.equals(call.argument(PARAM_RESET))) {
+                metrics.reset();
+            }
+        }
+        result.success(info);
+    }
+
     //private static class Database
 
     void onGetDatabasesPath(final MethodCall call, Result result) {
@@ -816,12 +1824,59 @@ public class SqflitePlugin implements MethodCallHandler {
         final boolean singleInstance;
         final String path;
         final int id;
-        SQLiteDatabase sqliteDatabase;
-
-        private Database(Context context, String path, int id, boolean singleInstance) {
+        // Set on the database thread, checked on the platform thread while opening
+        volatile SQLiteDatabase sqliteDatabase;
+        // Set when opening, in WAL mode the read connections can be used
+        boolean walEnabled;
+        // cache_size and mmap_size are per connection, applied to the read connections as well
+        private final List<String> connectionPragmas = new ArrayList<>();
+        // Optional, set when opening
+        QueryResultCache queryResultCache;
+
+        // Own thread, null when using the plugin shared thread
+        HandlerThread handlerThread;
+        Handler handler;
+
+        // Read only connections for queries, empty if not enabled
+        private final List<ReadConnection> readConnections = new ArrayList<>();
+        // Queued or running tasks on the primary connection
+        private int pendingTaskCount;
+        // Set by BEGIN, cleared by COMMIT/END/ROLLBACK
+        private boolean inTransaction;
+
+        // Task queue statistics
+        private int queueDepth;
+        private int maxQueueDepth;
+        private long taskCount;
+        private long totalWaitNanos;
+        private long maxWaitNanos;
+
+        // Opened query cursors by id
+        @SuppressLint("UseSparseArrays")
+        private final Map<Integer, QueryCursor> queryCursors = new HashMap<>();
+        private int lastCursorId = 0;
+
+        // Compiled statements by sql, least recently used first
+        final int statementCacheSize;
+        private final Map<String, SQLiteStatement> statementCache;
+        private int statementCacheHitCount;
+        private int statementCacheMissCount;
+
+        private Database(Context context, String path, int id, boolean singleInstance, int statementCacheSize) {
             this.path = path;
             this.singleInstance = singleInstance;
             this.id = id;
+            this.statementCacheSize = statementCacheSize;
+            statementCache = new LinkedHashMap<String, SQLiteStatement>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, SQLiteStatement> eldest) {
+                    if (size() > Database.this.statementCacheSize) {
+                        eldest.getValue().close();
+                        return true;
+                    }
+                    return false;
+                }
+            };
         }
 
         private void open() {
@@ -834,8 +1889,369 @@ public class SqflitePlugin implements MethodCallHandler {
                     SQLiteDatabase.OPEN_READONLY);
         }
 
+        private String pragma(String pragma) {
+            return pragma(sqliteDatabase, pragma);
+        }
+
+        // Some pragmas return a row, rawQuery handles both
+        // Returns the first column of the row, null if none
+        private String pragma(SQLiteDatabase db, String pragma) {
+            if (Debug.LOGV) {
+                Log.d(TAG, "[" + getThreadLogTag() + "] PRAGMA " + pragma);
+            }
+            Cursor cursor = db.rawQuery("PRAGMA " + pragma, null);
+            try {
+                return cursor.moveToFirst() && cursor.getColumnCount() > 0 ? cursor.getString(0) : null;
+            } finally {
+                cursor.close();
+            }
+        }
+
+        // Apply the open options right after opening then run the warm up query
+        // page size, synchronous and journal mode are ignored for read-only databases
+        // The journal mode goes first as enabling WAL can reset synchronous, enableWal
+        // turns WAL on when no journal mode is given
+        private void configure(MethodCall call, boolean readOnly, boolean enableWal) {
+            if (!readOnly) {
+                Integer pageSize = call.argument(PARAM_PAGE_SIZE);
+                if (pageSize != null) {
+                    // Only effective before the database is created (or after a VACUUM)
+                    pragma("page_size = " + pageSize);
+                }
+                String journalMode = call.argument(PARAM_JOURNAL_MODE);
+                if (journalMode != null) {
+                    String value = journalMode.toLowerCase();
+                    if (value.equals("wal")) {
+                        if (!enableWriteAheadLogging()) {
+                            throw new IllegalArgumentException("cannot enable WAL");
+                        }
+                    } else if (Arrays.asList("delete", "truncate", "persist", "memory", "off").contains(value)) {
+                        pragma("journal_mode = " + value);
+                    } else {
+                        throw new IllegalArgumentException("invalid journal mode " + journalMode);
+                    }
+                } else if (enableWal) {
+                    enableWriteAheadLogging();
+                }
+                Object synchronous = call.argument(PARAM_SYNCHRONOUS);
+                if (synchronous != null) {
+                    String value = synchronous.toString().toLowerCase();
+                    if (!Arrays.asList("off", "normal", "full", "extra", "0", "1", "2", "3").contains(value)) {
+                        throw new IllegalArgumentException("invalid synchronous " + synchronous);
+                    }
+                    pragma("synchronous = " + value);
+                }
+            }
+            Number cacheSize = call.argument(PARAM_CACHE_SIZE);
+            if (cacheSize != null) {
+                connectionPragmas.add("cache_size = " + cacheSize.longValue());
+            }
+            Number mmapSize = call.argument(PARAM_MMAP_SIZE);
+            if (mmapSize != null) {
+                connectionPragmas.add("mmap_size = " + mmapSize.longValue());
+            }
+            for (String pragma : connectionPragmas) {
+                pragma(pragma);
+            }
+            String warmUpQuery = call.argument(PARAM_WARM_UP_QUERY);
+            if (warmUpQuery != null) {
+                long startNanos = System.nanoTime();
+                Cursor cursor = sqliteDatabase.rawQuery(warmUpQuery, null);
+                try {
+                    // Steps through all the rows
+                    int count = cursor.getCount();
+                    if (Debug.LOGV) {
+                        Log.d(TAG, "[" + getThreadLogTag() + "] warm up " + count + " rows in "
+                                + (System.nanoTime() - startNanos) / 1000000 + "ms");
+                    }
+                } finally {
+                    cursor.close();
+                }
+            }
+        }
+
         public void close() {
-            sqliteDatabase.close();
+            closeQueryCursors();
+            clearStatementCache();
+            if (queryResultCache != null) {
+                queryResultCache.clear();
+            }
+            // null if the open failed
+            if (sqliteDatabase != null) {
+                sqliteDatabase.close();
+            }
+        }
+
+        synchronized int addQueryCursor(QueryCursor queryCursor) {
+            int cursorId = ++lastCursorId;
+            queryCursors.put(cursorId, queryCursor);
+            return cursorId;
+        }
+
+        synchronized QueryCursor getQueryCursor(int cursorId) {
+            return queryCursors.get(cursorId);
+        }
+
+        synchronized void closeQueryCursor(int cursorId) {
+            QueryCursor queryCursor = queryCursors.remove(cursorId);
+            if (queryCursor != null) {
+                queryCursor.cursor.close();
+            }
+        }
+
+        synchronized void closeQueryCursors() {
+            for (QueryCursor queryCursor : queryCursors.values()) {
+                queryCursor.cursor.close();
+            }
+            queryCursors.clear();
+        }
+
+        private void startThread(int priority) {
+            handlerThread = new HandlerThread("Sqflite-" + id, priority);
+            handlerThread.start();
+            handler = new Handler(handlerThread.getLooper());
+            if (Debug.LOGV) {
+                Log.d(TAG, "starting thread" + handlerThread + " priority " + priority);
+            }
+        }
+
+        private void stopThread() {
+            if (handlerThread != null) {
+                if (Debug.LOGV) {
+                    Log.d(TAG, "stopping thread" + handlerThread);
+                }
+                // Pending tasks still run and reply
+                handlerThread.quitSafely();
+                handlerThread = null;
+                handler = null;
+            }
+        }
+
+        synchronized void onTaskQueued() {
+            pendingTaskCount++;
+            if (++queueDepth > maxQueueDepth) {
+                maxQueueDepth = queueDepth;
+            }
+        }
+
+        synchronized void onTaskStarted(long waitNanos) {
+            queueDepth--;
+            taskCount++;
+            totalWaitNanos += waitNanos;
+            if (waitNanos > maxWaitNanos) {
+                maxWaitNanos = waitNanos;
+            }
+        }
+
+        synchronized void onTaskDone() {
+            pendingTaskCount--;
+        }
+
+        synchronized Map<String, Object> getQueueInfo() {
+            Map<String, Object> info = new HashMap<>();
+            info.put(PARAM_DEPTH, queueDepth);
+            info.put(PARAM_MAX_DEPTH, maxQueueDepth);
+            info.put(PARAM_COUNT, taskCount);
+            info.put(PARAM_AVERAGE_WAIT, taskCount == 0 ? 0.0 : totalWaitNanos / 1000000.0 / taskCount);
+            info.put(PARAM_MAX_WAIT, maxWaitNanos / 1000000.0);
+            return info;
+        }
+
+        // To call before any statement that is not a query
+        void onWrite(String sql) {
+            if (queryResultCache != null) {
+                queryResultCache.onWrite(sql);
+            }
+            if (sql != null && !readConnections.isEmpty()) {
+                // Same detection as done on the dart side
+                String lowerSql = sql.trim().toLowerCase();
+                synchronized (this) {
+                    if (lowerSql.startsWith("begin")) {
+                        inTransaction = true;
+                    } else if (lowerSql.startsWith("commit") || lowerSql.startsWith("end")
+                            || (lowerSql.startsWith("rollback")
+                            && !lowerSql.matches("rollback\\s+(transaction\\s+)?to\\b.*"))) {
+                        inTransaction = false;
+                    }
+                }
+            }
+        }
+
+        // Opened outside of the lock then published at once, none is kept on failure
+        private void openReadConnections(int count, int priority) {
+            List<ReadConnection> openedConnections = new ArrayList<>();
+            try {
+                for (int i = 0; i < count; i++) {
+                    SQLiteDatabase readDatabase = SQLiteDatabase.openDatabase(path, null,
+                            SQLiteDatabase.OPEN_READONLY);
+                    try {
+                        for (String pragma : connectionPragmas) {
+                            pragma(readDatabase, pragma);
+                        }
+                    } catch (RuntimeException e) {
+                        readDatabase.close();
+                        throw e;
+                    }
+                    HandlerThread readThread = new HandlerThread("Sqflite-" + id + "-read-" + i, priority);
+                    readThread.start();
+                    openedConnections.add(new ReadConnection(readDatabase, readThread));
+                }
+            } catch (RuntimeException e) {
+                for (ReadConnection readConnection : openedConnections) {
+                    readConnection.sqliteDatabase.close();
+                    readConnection.handlerThread.quit();
+                }
+                throw e;
+            }
+            synchronized (this) {
+                readConnections.addAll(openedConnections);
+            }
+            if (Debug.LOGV) {
+                Log.d(TAG, "opened " + count + " read connections for " + path);
+            }
+        }
+
+        // Pending queries are run before closing
+        private synchronized void closeReadConnections() {
+            for (final ReadConnection readConnection : readConnections) {
+                readConnection.handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        readConnection.sqliteDatabase.close();
+                        readConnection.handlerThread.quit();
+                    }
+                });
+            }
+            readConnections.clear();
+        }
+
+        synchronized int getReadConnectionCount() {
+            return readConnections.size();
+        }
+
+        // Least busy read connection to run a query on
+        // null if the query must run on the primary connection to see all the previous
+        // changes: no read connections, in a transaction or pending tasks
+        synchronized ReadConnection acquireReadConnection() {
+            if (readConnections.isEmpty() || inTransaction || pendingTaskCount > 0) {
+                return null;
+            }
+            ReadConnection readConnection = null;
+            for (ReadConnection candidate : readConnections) {
+                if (readConnection == null || candidate.pendingCount < readConnection.pendingCount) {
+                    readConnection = candidate;
+                }
+            }
+            readConnection.pendingCount++;
+            readConnection.queryCount++;
+            return readConnection;
+        }
+
+        synchronized void releaseReadConnection(ReadConnection readConnection) {
+            readConnection.pendingCount--;
+        }
+
+        synchronized List<Map<String, Object>> getReadConnectionsInfo() {
+            List<Map<String, Object>> info = new ArrayList<>();
+            for (ReadConnection readConnection : readConnections) {
+                Map<String, Object> connectionInfo = new HashMap<>();
+                connectionInfo.put(PARAM_THREAD, readConnection.handlerThread.getName());
+                connectionInfo.put(PARAM_COUNT, readConnection.queryCount);
+                info.add(connectionInfo);
+            }
+            return info;
+        }
+
+        // Read the views, triggers and foreign keys after a schema change
+        void checkQueryResultCacheSchema() {
+            if (!queryResultCache.isSchemaDirty()) {
+                return;
+            }
+            Set<String> views = new HashSet<>();
+            boolean writesMayCascade = false;
+            Cursor cursor = sqliteDatabase.rawQuery("SELECT type, name, sql FROM sqlite_master"
+                    + " UNION ALL SELECT type, name, sql FROM sqlite_temp_master", null);
+            try {
+                while (cursor.moveToNext()) {
+                    String type = cursor.getString(0);
+                    String sql = cursor.getString(2);
+                    if ("view".equals(type)) {
+                        views.add(cursor.getString(1).toLowerCase());
+                    } else if ("trigger".equals(type)
+                            || ("table".equals(type) && sql != null && sql.toLowerCase().contains("references"))) {
+                        writesMayCascade = true;
+                    }
+                }
+            } finally {
+                cursor.close();
+            }
+            queryResultCache.setSchema(views, writesMayCascade);
+        }
+
+        // Only INSERT/UPDATE/DELETE/REPLACE are cached, transaction, pragma
+        // and schema changes keep going through execSQL
+        private boolean isStatementCacheable(String sql) {
+            return statementCacheSize > 0 && sql != null
+                    && DatabaseUtils.getSqlStatementType(sql) == DatabaseUtils.STATEMENT_UPDATE;
+        }
+
+        // Return the compiled statement with its arguments bound
+        // null if the command cannot be cached
+        synchronized SQLiteStatement getCachedStatement(SqlCommand command) {
+            String sql = command.getSql();
+            if (!isStatementCacheable(sql)) {
+                return null;
+            }
+            SQLiteStatement statement = statementCache.get(sql);
+            if (statement != null) {
+                statementCacheHitCount++;
+                statement.clearBindings();
+            } else {
+                statementCacheMissCount++;
+                statement = sqliteDatabase.compileStatement(sql);
+                statementCache.put(sql, statement);
+            }
+            command.bindTo(statement);
+            return statement;
+        }
+
+        synchronized void clearStatementCache() {
+            for (SQLiteStatement statement : statementCache.values()) {
+                statement.close();
+            }
+            statementCache.clear();
+        }
+
+        synchronized Map<String, Object> getStatementCacheInfo() {
+            Map<String, Object> info = new HashMap<>();
+            int lookupCount = statementCacheHitCount + statementCacheMissCount;
+            info.put(PARAM_SIZE, statementCache.size());
+            info.put(PARAM_MAX_SIZE, statementCacheSize);
+            info.put(PARAM_HIT_COUNT, statementCacheHitCount);
+            info.put(PARAM_MISS_COUNT, statementCacheMissCount);
+            info.put(PARAM_HIT_RATE, lookupCount == 0 ? 0.0 : (double) statementCacheHitCount / lookupCount);
+            return info;
+        }
+
+        Map<String, Object> getDebugInfo() {
+            Map<String, Object> info = new HashMap<>();
+            info.put(PARAM_PATH, path);
+            info.put(PARAM_SINGLE_INSTANCE, singleInstance);
+            if (handlerThread != null) {
+                info.put(PARAM_THREAD, handlerThread.getName());
+            }
+            info.put(PARAM_QUEUE, getQueueInfo());
+            synchronized (this) {
+                info.put(PARAM_CURSOR_COUNT, queryCursors.size());
+            }
+            if (!readConnections.isEmpty()) {
+                info.put(PARAM_READ_CONNECTIONS, getReadConnectionsInfo());
+            }
+            info.put(PARAM_STATEMENT_CACHE, getStatementCacheInfo());
+            if (queryResultCache != null) {
+                info.put(PARAM_QUERY_CACHE, queryResultCache.getInfo());
+            }
+            return info;
         }
 
         public SQLiteDatabase getWritableDatabase() {
@@ -846,9 +2262,13 @@ public class SqflitePlugin implements MethodCallHandler {
             return sqliteDatabase;
         }
 
+        // Through the pragma rather than SQLiteDatabase.enableWriteAheadLogging() which would
+        // open a framework pool of connections missing the per connection pragmas, concurrent
+        // reads use the read connections instead
         public boolean enableWriteAheadLogging() {
             try {
-                return sqliteDatabase.enableWriteAheadLogging();
+                walEnabled = "wal".equalsIgnoreCase(pragma("journal_mode = wal"));
+                return walEnabled;
             } catch (Exception e) {
                 Log.e(TAG, "enable WAL error: " + e);
                 return false;
@@ -862,13 +2282,88 @@ public class SqflitePlugin implements MethodCallHandler {
         }
     }
 
+    // Paged query state kept between queryCursorNext calls
+    private static class QueryCursor {
+        final SqlCommand command;
+        final Cursor cursor;
+        final boolean columnar;
+        int pageSize;
+        boolean hasMore;
+
+        private QueryCursor(SqlCommand command, Cursor cursor, int pageSize, boolean columnar) {
+            this.command = command;
+            this.cursor = cursor;
+            this.pageSize = pageSize;
+            this.columnar = columnar;
+        }
+    }
+
+    // Report the progress of an export/import to the dart side, at most once per chunk
+    // {
+    // 'id': xxx,
+    // 'progressId': 1,
+    // 'rowCount': 1000,
+    // 'byteCount': 123456
+    // }
+    private class TableProgress {
+        // Caller handler
+        final Handler handler = new Handler();
+        final int databaseId;
+        final Integer progressId;
+        private long lastByteCount;
+
+        private TableProgress(int databaseId, Integer progressId) {
+            this.databaseId = databaseId;
+            this.progressId = progressId;
+        }
+
+        void onRow(long rowCount, long byteCount) {
+            if (progressId == null || channel == null || byteCount - lastByteCount < TableFile.DEFAULT_CHUNK_SIZE) {
+                return;
+            }
+            lastByteCount = byteCount;
+            final Map<String, Object> arguments = makeTableResult(rowCount, byteCount);
+            arguments.put(PARAM_ID, databaseId);
+            arguments.put(PARAM_PROGRESS_ID, progressId);
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    channel.invokeMethod(METHOD_TABLE_PROGRESS, arguments);
+                }
+            });
+        }
+    }
+
+    // Read only connection of a database with its own thread
+    private static class ReadConnection {
+        final SQLiteDatabase sqliteDatabase;
+        final HandlerThread handlerThread;
+        final Handler handler;
+        // guarded by the database
+        int pendingCount;
+        long queryCount;
+
+        private ReadConnection(SQLiteDatabase sqliteDatabase, HandlerThread handlerThread) {
+            this.sqliteDatabase = sqliteDatabase;
+            this.handlerThread = handlerThread;
+            handler = new Handler(handlerThread.getLooper());
+        }
+    }
+
     private class BgResult implements Result {
         // Caller handler
         final Handler handler = new Handler();
         private final Result result;
+        // To record the reply (encoding) time in metrics, null if not applicable
+        private final String sql;
 
         private BgResult(Result result) {
+            this(result, null);
+        }
+
+        private BgResult(Result result, String sql) {
             this.result = result;
+            this.sql = sql;
         }
 
         // make sure to respond in the caller thread
@@ -877,7 +2372,14 @@ public class SqflitePlugin implements MethodCallHandler {
             handler.post(new Runnable() {
                 @Override
                 public void run() {
-                    result.success(results);
+                    SqlMetrics metrics = METRICS;
+                    if (metrics != null && sql != null) {
+                        long startNanos = System.nanoTime();
+                        result.success(results);
+                        metrics.addCodec(sql, System.nanoTime() - startNanos);
+                    } else {
+                        result.success(results);
+                    }
                 }
             });
         }
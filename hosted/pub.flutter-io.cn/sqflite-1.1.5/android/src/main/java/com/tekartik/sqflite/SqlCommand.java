@@ -1,5 +1,7 @@
 package com.tekartik.sqflite;
 
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteProgram;
 import android.util.Log;
 
 import java.util.ArrayList;
@@ -55,6 +57,14 @@ public class SqlCommand {
 
     }
 
+    // Bind the arguments to a compiled statement or query keeping their type
+    // as execSQL does (int/long as integer, double as real, list as blob...)
+    public void bindTo(SQLiteProgram program) {
+        for (int i = 0; i < rawArguments.size(); i++) {
+            DatabaseUtils.bindObjectToProgram(program, i + 1, toValue(rawArguments.get(i)));
+        }
+    }
+
     // Only sanitize if the parameter count matches the argument count
     // For integer value replace ? with the actual value directly
     // to workaround an issue with references
@@ -207,6 +217,10 @@ public class SqlCommand {
                     if (!Arrays.equals((byte[]) rawArguments.get(i), (byte[]) o.rawArguments.get(i))) {
                         return false;
                     }
+                } else if (rawArguments.get(i) == null) {
+                    if (o.rawArguments.get(i) != null) {
+                        return false;
+                    }
                 } else {
                     if (!rawArguments.get(i).equals(o.rawArguments.get(i))) {
                         return false;
@@ -0,0 +1,187 @@
+package com.tekartik.sqflite;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Execution statistics by sql fingerprint (the sql with literals replaced by ?)
+ * <p>
+ * {
+ * 'queueWait': { 'count': 10, 'total': 5.2, 'average': 0.52, 'max': 2.1 },
+ * 'statements': [
+ * { 'sql': 'select * from test where id = ?', 'count': 3, 'total': 12.1, 'average': 4.0, 'p95': 6.3,
+ * 'max': 6.3, 'rows': 30, 'read': 3.2, 'codec': 1.4 }
+ * ]
+ * }
+ * <p>
+ * Times are in ms, statements are sorted by total time. 'read' is the time spent converting
+ * the cursor rows (including stepping through the query), 'codec' the time spent replying
+ * (encoding) on the main thread. p95 is computed on the last SAMPLE_COUNT executions.
+ */
+public class SqlMetrics {
+
+    static final int SAMPLE_COUNT = 128;
+    // Stop tracking new fingerprints after this
+    static final int MAX_FINGERPRINT_COUNT = 500;
+
+    static final String PARAM_QUEUE_WAIT = "queueWait";
+    static final String PARAM_STATEMENTS = "statements";
+    static final String PARAM_SQL = "sql";
+    static final String PARAM_COUNT = "count";
+    static final String PARAM_TOTAL = "total";
+    static final String PARAM_AVERAGE = "average";
+    static final String PARAM_P95 = "p95";
+    static final String PARAM_MAX = "max";
+    static final String PARAM_ROWS = "rows";
+    static final String PARAM_READ = "read";
+    static final String PARAM_CODEC = "codec";
+
+    private final Map<String, Stats> statsByFingerprint = new HashMap<>();
+    private final Map<String, String> fingerprintBySql = new HashMap<>();
+    private final Stats queueWait = new Stats(null);
+
+    static private class Stats {
+        final String fingerprint;
+        long count;
+        long totalNanos;
+        long maxNanos;
+        long rowCount;
+        long readNanos;
+        long codecNanos;
+        // last executions, for percentile
+        final long[] samples = new long[SAMPLE_COUNT];
+
+        private Stats(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        void add(long nanos) {
+            samples[(int) (count % SAMPLE_COUNT)] = nanos;
+            count++;
+            totalNanos += nanos;
+            if (nanos > maxNanos) {
+                maxNanos = nanos;
+            }
+        }
+
+        long getP95Nanos() {
+            int sampleCount = (int) Math.min(count, SAMPLE_COUNT);
+            if (sampleCount == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(samples, sampleCount);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.ceil(sampleCount * 0.95) - 1];
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            if (fingerprint != null) {
+                map.put(PARAM_SQL, fingerprint);
+            }
+            map.put(PARAM_COUNT, count);
+            map.put(PARAM_TOTAL, toMs(totalNanos));
+            map.put(PARAM_AVERAGE, count == 0 ? 0.0 : toMs(totalNanos) / count);
+            map.put(PARAM_MAX, toMs(maxNanos));
+            if (fingerprint != null) {
+                map.put(PARAM_P95, toMs(getP95Nanos()));
+                map.put(PARAM_ROWS, rowCount);
+                map.put(PARAM_READ, toMs(readNanos));
+                map.put(PARAM_CODEC, toMs(codecNanos));
+            }
+            return map;
+        }
+    }
+
+    static private double toMs(long nanos) {
+        return nanos / 1000000.0;
+    }
+
+    // Lower case sql with its literals replaced by ?
+    static String getFingerprint(String sql) {
+        StringBuilder sb = new StringBuilder();
+        for (String token : QueryResultCache.tokenize(sql)) {
+            // Empty for a "" or [] identifier
+            if (token.startsWith("'") || (!token.isEmpty() && Character.isDigit(token.charAt(0)))) {
+                token = "?";
+            }
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(token);
+        }
+        return sb.toString();
+    }
+
+    // null if too many different fingerprints are tracked already
+    private Stats getStats(String sql) {
+        if (sql == null) {
+            sql = "";
+        }
+        String fingerprint = fingerprintBySql.get(sql);
+        if (fingerprint == null) {
+            fingerprint = getFingerprint(sql);
+            if (fingerprintBySql.size() < MAX_FINGERPRINT_COUNT * 4) {
+                fingerprintBySql.put(sql, fingerprint);
+            }
+        }
+        Stats stats = statsByFingerprint.get(fingerprint);
+        if (stats == null && statsByFingerprint.size() < MAX_FINGERPRINT_COUNT) {
+            stats = new Stats(fingerprint);
+            statsByFingerprint.put(fingerprint, stats);
+        }
+        return stats;
+    }
+
+    // rowCount and readNanos are 0 for statements that are not queries
+    public synchronized void addExecution(String sql, long nanos, int rowCount, long readNanos) {
+        Stats stats = getStats(sql);
+        if (stats != null) {
+            stats.add(nanos);
+            stats.rowCount += rowCount;
+            stats.readNanos += readNanos;
+        }
+    }
+
+    public synchronized void addCodec(String sql, long nanos) {
+        Stats stats = getStats(sql);
+        if (stats != null) {
+            stats.codecNanos += nanos;
+        }
+    }
+
+    public synchronized void addQueueWait(long nanos) {
+        queueWait.add(nanos);
+    }
+
+    public synchronized void reset() {
+        statsByFingerprint.clear();
+        fingerprintBySql.clear();
+        queueWait.count = 0;
+        queueWait.totalNanos = 0;
+        queueWait.maxNanos = 0;
+    }
+
+    public synchronized Map<String, Object> toMap() {
+        List<Stats> statsList = new ArrayList<>(statsByFingerprint.values());
+        Collections.sort(statsList, new Comparator<Stats>() {
+            @Override
+            public int compare(Stats o1, Stats o2) {
+                return Long.compare(o2.totalNanos, o1.totalNanos);
+            }
+        });
+        List<Map<String, Object>> statements = new ArrayList<>();
+        for (Stats stats : statsList) {
+            statements.add(stats.toMap());
+        }
+        Map<String, Object> map = new HashMap<>();
+        map.put(PARAM_QUEUE_WAIT, queueWait.toMap());
+        map.put(PARAM_STATEMENTS, statements);
+        return map;
+    }
+}
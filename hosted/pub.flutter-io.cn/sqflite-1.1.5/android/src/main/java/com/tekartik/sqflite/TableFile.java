@@ -0,0 +1,260 @@
+package com.tekartik.sqflite;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Binary file of table rows, written and read through a single chunk buffer
+ * <p>
+ * Big endian, lengths are int:
+ * 'SQFT', version (int), column count (int), column names (length + utf8)
+ * then for each row ROW (byte) followed by each value as its type (byte) and its data:
+ * nothing for null, long, double, length + utf8 for text, length + bytes for blob.
+ * The file ends with END (byte).
+ */
+public class TableFile {
+
+    static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    static final byte[] MAGIC = {'S', 'Q', 'F', 'T'};
+    static final int VERSION = 1;
+
+    static final byte END = 0;
+    static final byte ROW = 1;
+
+    static final byte TYPE_NULL = 0;
+    static final byte TYPE_INTEGER = 1;
+    static final byte TYPE_REAL = 2;
+    static final byte TYPE_TEXT = 3;
+    static final byte TYPE_BLOB = 4;
+
+    static final private Charset UTF8 = Charset.forName("UTF-8");
+
+    static public class Writer {
+        final private FileChannel channel;
+        final private ByteBuffer buffer;
+        private long byteCount;
+
+        public Writer(FileChannel channel, int chunkSize) {
+            this.channel = channel;
+            buffer = ByteBuffer.allocate(chunkSize);
+        }
+
+        // Bytes written so far, including the buffered ones
+        public long getByteCount() {
+            return byteCount;
+        }
+
+        private void ensure(int size) throws IOException {
+            if (buffer.remaining() < size) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private void writeBytes(byte[] bytes) throws IOException {
+            ensure(4);
+            buffer.putInt(bytes.length);
+            if (bytes.length <= buffer.capacity()) {
+                ensure(bytes.length);
+                buffer.put(bytes);
+            } else {
+                // Too big for a chunk, written as is
+                flush();
+                ByteBuffer data = ByteBuffer.wrap(bytes);
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+            }
+            byteCount += 4 + bytes.length;
+        }
+
+        public void writeColumns(String[] columns) throws IOException {
+            ensure(MAGIC.length + 8);
+            buffer.put(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(columns.length);
+            byteCount += MAGIC.length + 8;
+            for (String column : columns) {
+                writeBytes(column.getBytes(UTF8));
+            }
+        }
+
+        public void startRow() throws IOException {
+            ensure(1);
+            buffer.put(ROW);
+            byteCount++;
+        }
+
+        public void writeNull() throws IOException {
+            ensure(1);
+            buffer.put(TYPE_NULL);
+            byteCount++;
+        }
+
+        public void writeLong(long value) throws IOException {
+            ensure(9);
+            buffer.put(TYPE_INTEGER);
+            buffer.putLong(value);
+            byteCount += 9;
+        }
+
+        public void writeDouble(double value) throws IOException {
+            ensure(9);
+            buffer.put(TYPE_REAL);
+            buffer.putDouble(value);
+            byteCount += 9;
+        }
+
+        public void writeText(String value) throws IOException {
+            ensure(1);
+            buffer.put(TYPE_TEXT);
+            byteCount++;
+            writeBytes(value.getBytes(UTF8));
+        }
+
+        public void writeBlob(byte[] value) throws IOException {
+            ensure(1);
+            buffer.put(TYPE_BLOB);
+            byteCount++;
+            writeBytes(value);
+        }
+
+        // Write the end marker and the remaining buffered bytes, the channel is not closed
+        public void finish() throws IOException {
+            ensure(1);
+            buffer.put(END);
+            byteCount++;
+            flush();
+        }
+    }
+
+    static public class Reader {
+        final private FileChannel channel;
+        final private ByteBuffer buffer;
+        private long byteCount;
+
+        public Reader(FileChannel channel, int chunkSize) {
+            this.channel = channel;
+            buffer = ByteBuffer.allocate(chunkSize);
+            buffer.limit(0);
+        }
+
+        // Bytes read so far
+        public long getByteCount() {
+            return byteCount;
+        }
+
+        // Make sure size bytes (at most a chunk) are available in the buffer
+        private void ensure(int size) throws IOException {
+            if (buffer.remaining() >= size) {
+                return;
+            }
+            buffer.compact();
+            while (buffer.position() < size) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("truncated table file");
+                }
+            }
+            buffer.flip();
+        }
+
+        private byte readByte() throws IOException {
+            ensure(1);
+            byteCount++;
+            return buffer.get();
+        }
+
+        private byte[] readBytes() throws IOException {
+            ensure(4);
+            int length = buffer.getInt();
+            if (length < 0) {
+                throw new IOException("invalid length " + length);
+            }
+            byte[] bytes = new byte[length];
+            if (length <= buffer.capacity()) {
+                ensure(length);
+                buffer.get(bytes);
+            } else {
+                // Too big for a chunk, read directly
+                int buffered = buffer.remaining();
+                buffer.get(bytes, 0, buffered);
+                ByteBuffer data = ByteBuffer.wrap(bytes, buffered, length - buffered);
+                while (data.hasRemaining()) {
+                    if (channel.read(data) < 0) {
+                        throw new EOFException("truncated table file");
+                    }
+                }
+            }
+            byteCount += 4 + length;
+            return bytes;
+        }
+
+        public String[] readColumns() throws IOException {
+            ensure(MAGIC.length + 8);
+            byte[] magic = new byte[MAGIC.length];
+            buffer.get(magic);
+            int version = buffer.getInt();
+            int columnCount = buffer.getInt();
+            byteCount += MAGIC.length + 8;
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("not a table file");
+            }
+            if (version != VERSION) {
+                throw new IOException("unsupported table file version " + version);
+            }
+            String[] columns = new String[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                columns[i] = new String(readBytes(), UTF8);
+            }
+            return columns;
+        }
+
+        // false once the end marker is read
+        public boolean nextRow() throws IOException {
+            byte marker = readByte();
+            if (marker == END) {
+                return false;
+            } else if (marker != ROW) {
+                throw new IOException("invalid row marker " + marker);
+            }
+            return true;
+        }
+
+        // Type of the next value, to read using the matching method (nothing to read for TYPE_NULL)
+        public byte nextType() throws IOException {
+            return readByte();
+        }
+
+        public long readLong() throws IOException {
+            ensure(8);
+            byteCount += 8;
+            return buffer.getLong();
+        }
+
+        public double readDouble() throws IOException {
+            ensure(8);
+            byteCount += 8;
+            return buffer.getDouble();
+        }
+
+        public String readText() throws IOException {
+            return new String(readBytes(), UTF8);
+        }
+
+        public byte[] readBlob() throws IOException {
+            return readBytes();
+        }
+    }
+}
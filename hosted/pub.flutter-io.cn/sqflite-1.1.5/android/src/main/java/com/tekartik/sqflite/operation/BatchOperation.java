@@ -65,6 +65,11 @@ public class BatchOperation extends BaseOperation {
         return operationResult;
     }
 
+    // Raw result once successful
+    public Object getResult() {
+        return operationResult.result;
+    }
+
     public Map<String, Object> getOperationSuccessResult() {
         Map<String, Object> results = new HashMap<>();
         results.put(PARAM_RESULT, operationResult.result);
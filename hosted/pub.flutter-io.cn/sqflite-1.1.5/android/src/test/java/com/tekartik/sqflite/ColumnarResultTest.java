@@ -0,0 +1,116 @@
+package com.tekartik.sqflite;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class ColumnarResultTest {
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> getColumn(Map<String, Object> map, int index) {
+        return ((List<Map<String, Object>>) map.get("columnData")).get(index);
+    }
+
+    @Test
+    public void empty() {
+        ColumnarResult result = new ColumnarResult(new String[]{"id"});
+        Map<String, Object> map = result.toMap();
+        assertEquals(Arrays.asList("id"), map.get("columns"));
+        assertEquals(0, map.get("rowCount"));
+        assertEquals("null", getColumn(map, 0).get("type"));
+    }
+
+    @Test
+    public void typedColumns() {
+        ColumnarResult result = new ColumnarResult(new String[]{"id", "value", "name", "data"});
+        result.addLong(0, 1);
+        result.addDouble(1, 1.5);
+        result.addString(2, "un");
+        result.addBlob(3, new byte[]{1, 2});
+        result.endRow();
+        result.addLong(0, 2);
+        result.addNull(1);
+        result.addNull(2);
+        result.addBlob(3, new byte[]{3});
+        result.endRow();
+        result.addLong(0, 3);
+        result.addDouble(1, 3.5);
+        result.addString(2, "trois");
+        result.addNull(3);
+        result.endRow();
+
+        Map<String, Object> map = result.toMap();
+        assertEquals(3, map.get("rowCount"));
+
+        Map<String, Object> column = getColumn(map, 0);
+        assertEquals("integer", column.get("type"));
+        assertArrayEquals(new long[]{1, 2, 3}, (long[]) column.get("values"));
+        assertFalse(column.containsKey("nulls"));
+
+        column = getColumn(map, 1);
+        assertEquals("real", column.get("type"));
+        assertArrayEquals(new double[]{1.5, 0, 3.5}, (double[]) column.get("values"), 0);
+        assertArrayEquals(new byte[]{2}, (byte[]) column.get("nulls"));
+
+        column = getColumn(map, 2);
+        assertEquals("text", column.get("type"));
+        assertArrayEquals(new int[]{0, 2, 2, 7}, (int[]) column.get("offsets"));
+        assertArrayEquals("untrois".getBytes(), (byte[]) column.get("data"));
+        assertArrayEquals(new byte[]{2}, (byte[]) column.get("nulls"));
+
+        column = getColumn(map, 3);
+        assertEquals("blob", column.get("type"));
+        assertArrayEquals(new int[]{0, 2, 3, 3}, (int[]) column.get("offsets"));
+        assertArrayEquals(new byte[]{1, 2, 3}, (byte[]) column.get("data"));
+        assertArrayEquals(new byte[]{4}, (byte[]) column.get("nulls"));
+    }
+
+    @Test
+    public void leadingNulls() {
+        ColumnarResult result = new ColumnarResult(new String[]{"id", "name"});
+        for (int i = 0; i < 20; i++) {
+            result.addNull(0);
+            result.addNull(1);
+            result.endRow();
+        }
+        result.addLong(0, 1);
+        result.addString(1, "\u00e9");
+        result.endRow();
+
+        Map<String, Object> map = result.toMap();
+        long[] values = (long[]) getColumn(map, 0).get("values");
+        assertEquals(21, values.length);
+        assertEquals(1, values[20]);
+        assertArrayEquals(new byte[]{-1, -1, 15}, (byte[]) getColumn(map, 0).get("nulls"));
+
+        int[] offsets = (int[]) getColumn(map, 1).get("offsets");
+        assertEquals(22, offsets.length);
+        assertEquals(0, offsets[20]);
+        assertEquals(2, offsets[21]);
+    }
+
+    @Test
+    public void mixed() {
+        ColumnarResult result = new ColumnarResult(new String[]{"value"});
+        result.addLong(0, 1);
+        result.endRow();
+        result.addNull(0);
+        result.endRow();
+        result.addString(0, "text");
+        result.endRow();
+        result.addDouble(0, 1.5);
+        result.endRow();
+
+        Map<String, Object> column = getColumn(result.toMap(), 0);
+        assertEquals("mixed", column.get("type"));
+        assertEquals(Arrays.asList(1L, null, "text", 1.5), column.get("values"));
+        assertNull(column.get("nulls"));
+    }
+}
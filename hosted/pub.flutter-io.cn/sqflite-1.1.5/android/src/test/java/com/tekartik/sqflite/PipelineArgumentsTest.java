@@ -0,0 +1,59 @@
+package com.tekartik.sqflite;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class PipelineArgumentsTest {
+
+    private static Map<String, Object> operation(Object... arguments) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("method", "query");
+        map.put("sql", "SELECT * FROM Test WHERE id = ? AND name = ?");
+        map.put("arguments", Arrays.asList(arguments));
+        return map;
+    }
+
+    private static Map<String, Object> reference(Object index) {
+        return Collections.singletonMap("pipelineResult", index);
+    }
+
+    @Test
+    public void resolve() {
+        List<Object> results = Arrays.<Object>asList(12L, null);
+        Map<String, Object> operation = operation(reference(0), "item");
+        Map<String, Object> resolved = PipelineArguments.resolve(operation, results);
+        assertEquals(Arrays.<Object>asList(12L, "item"), resolved.get("arguments"));
+        assertEquals("query", resolved.get("method"));
+        // not modified
+        assertEquals(reference(0), ((List<?>) operation.get("arguments")).get(0));
+
+        resolved = PipelineArguments.resolve(operation(reference(1), "item"), results);
+        assertEquals(Arrays.<Object>asList(null, "item"), resolved.get("arguments"));
+
+        // nothing to resolve
+        operation = operation(1, "item");
+        assertSame(operation, PipelineArguments.resolve(operation, results));
+    }
+
+    @Test
+    public void invalid() {
+        List<Object> results = Arrays.<Object>asList(12L, Collections.emptyList());
+        for (Object index : Arrays.<Object>asList(2, -1, 1, "0", null)) {
+            try {
+                PipelineArguments.resolve(operation(reference(index), "item"), results);
+                fail("should fail for " + index);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.tekartik.sqflite;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class QueryResultCacheTest {
+
+    private static QueryResultCache newCache(int maxSize) {
+        QueryResultCache cache = new QueryResultCache(maxSize);
+        cache.setSchema(new HashSet<String>(), false);
+        return cache;
+    }
+
+    @Test
+    public void tokenize() {
+        assertEquals(Arrays.asList("select", "*", "from", "my table", "where", "a", "=", "'it''s'"),
+                QueryResultCache.tokenize("SELECT * FROM \"My Table\" -- comment\nWHERE a = 'it''s'"));
+        assertEquals(Arrays.asList("select", "1"), QueryResultCache.tokenize("SELECT /* from t */ 1"));
+    }
+
+    @Test
+    public void readTables() {
+        assertEquals(new HashSet<>(Arrays.asList("test")),
+                QueryResultCache.getReadTables(QueryResultCache.tokenize("SELECT * FROM Test WHERE id = ?")));
+        assertEquals(new HashSet<>(Arrays.asList("a", "b", "c", "d")),
+                QueryResultCache.getReadTables(QueryResultCache.tokenize(
+                        "SELECT * FROM main.a x, b AS y JOIN c ON x.id = c.id"
+                                + " WHERE y.id IN (SELECT id FROM [d])")));
+        assertEquals(new HashSet<String>(),
+                QueryResultCache.getReadTables(QueryResultCache.tokenize("SELECT 1")));
+    }
+
+    @Test
+    public void writeTable() {
+        assertEquals("test", QueryResultCache.getWriteTable(QueryResultCache.tokenize("INSERT INTO Test (name) VALUES (?)")));
+        assertEquals("test", QueryResultCache.getWriteTable(QueryResultCache.tokenize("INSERT OR REPLACE INTO main.Test VALUES (?)")));
+        assertEquals("test", QueryResultCache.getWriteTable(QueryResultCache.tokenize("REPLACE INTO Test VALUES (?)")));
+        assertEquals("test", QueryResultCache.getWriteTable(QueryResultCache.tokenize("UPDATE OR IGNORE Test SET name = ?")));
+        assertEquals("test", QueryResultCache.getWriteTable(QueryResultCache.tokenize("DELETE FROM `Test`")));
+        assertNull(QueryResultCache.getWriteTable(QueryResultCache.tokenize("WITH x AS (SELECT 1) DELETE FROM Test")));
+        assertNull(QueryResultCache.getWriteTable(QueryResultCache.tokenize("PRAGMA user_version = 1")));
+    }
+
+    @Test
+    public void key() {
+        QueryResultCache cache = newCache(10);
+        assertNotNull(cache.getKey(new SqlCommand("SELECT * FROM Test", null), ""));
+        assertNull(cache.getKey(new SqlCommand("SELECT 1", null), ""));
+        assertNull(cache.getKey(new SqlCommand("PRAGMA user_version", null), ""));
+        assertNull(cache.getKey(new SqlCommand("SELECT * FROM Test WHERE date < datetime('now')", null), ""));
+        assertNull(cache.getKey(new SqlCommand("SELECT * FROM Test ORDER BY random()", null), ""));
+
+        cache.setSchema(new HashSet<>(Arrays.asList("test_view")), false);
+        assertNull(cache.getKey(new SqlCommand("SELECT * FROM Test_View", null), ""));
+    }
+
+    @Test
+    public void getPut() {
+        QueryResultCache cache = newCache(2);
+        QueryResultCache.Key key1 = cache.getKey(new SqlCommand("SELECT * FROM Test WHERE id = ?", Arrays.<Object>asList(1)), "");
+        QueryResultCache.Key key2 = cache.getKey(new SqlCommand("SELECT * FROM Test WHERE id = ?", Arrays.<Object>asList(2)), "");
+        QueryResultCache.Key key3 = cache.getKey(new SqlCommand("SELECT * FROM Other", null), "");
+        assertNull(cache.get(key1));
+        cache.put(key1, "result1");
+        assertEquals("result1", cache.get(cache.getKey(new SqlCommand("SELECT * FROM Test WHERE id = ?", Arrays.<Object>asList(1)), "")));
+        assertNull(cache.get(cache.getKey(new SqlCommand("SELECT * FROM Test WHERE id = ?", Arrays.<Object>asList(1)), "columnar")));
+
+        // lru
+        cache.put(key2, "result2");
+        cache.get(key1);
+        cache.put(key3, "result3");
+        assertEquals(2, cache.size());
+        assertEquals("result1", cache.get(key1));
+        assertNull(cache.get(key2));
+    }
+
+    @Test
+    public void keyHashCode() {
+        QueryResultCache cache = newCache(2);
+        String sql = "SELECT * FROM Test WHERE id = ?";
+        assertNotEquals(cache.getKey(new SqlCommand(sql, Arrays.<Object>asList(1)), "").hashCode(),
+                cache.getKey(new SqlCommand(sql, Arrays.<Object>asList(2)), "").hashCode());
+        assertEquals(cache.getKey(new SqlCommand(sql, Arrays.<Object>asList(new byte[]{1, 2})), "").hashCode(),
+                cache.getKey(new SqlCommand(sql, Arrays.<Object>asList(new byte[]{1, 2})), "").hashCode());
+    }
+
+    @Test
+    public void invalidate() {
+        QueryResultCache cache = newCache(10);
+        QueryResultCache.Key key1 = cache.getKey(new SqlCommand("SELECT * FROM Test", null), "");
+        QueryResultCache.Key key2 = cache.getKey(new SqlCommand("SELECT * FROM Other", null), "");
+        cache.put(key1, "result1");
+        cache.put(key2, "result2");
+
+        cache.onWrite("BEGIN IMMEDIATE");
+        assertEquals(2, cache.size());
+        cache.onWrite("UPDATE Test SET name = ?");
+        assertNull(cache.get(key1));
+        assertEquals("result2", cache.get(key2));
+
+        cache.put(key1, "result1");
+        cache.onWrite("ROLLBACK");
+        assertEquals(0, cache.size());
+
+        cache.put(key1, "result1");
+        cache.onWrite("CREATE TRIGGER t AFTER INSERT ON Test BEGIN DELETE FROM Other; END");
+        assertEquals(0, cache.size());
+        assertEquals(true, cache.isSchemaDirty());
+
+        // triggers: any write clears the cache
+        cache.setSchema(new HashSet<String>(), true);
+        cache.put(key2, "result2");
+        cache.onWrite("INSERT INTO Test (name) VALUES (?)");
+        assertEquals(0, cache.size());
+    }
+}
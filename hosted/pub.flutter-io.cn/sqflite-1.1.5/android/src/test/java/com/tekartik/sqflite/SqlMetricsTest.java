@@ -0,0 +1,82 @@
+package com.tekartik.sqflite;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class SqlMetricsTest {
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> getStatements(SqlMetrics metrics) {
+        return (List<Map<String, Object>>) metrics.toMap().get("statements");
+    }
+
+    @Test
+    public void fingerprint() {
+        assertEquals("select * from test where id = ? and name = ?",
+                SqlMetrics.getFingerprint("SELECT * FROM Test WHERE id = 12 AND name = 'it''s'"));
+        assertEquals("select * from test where id = ?",
+                SqlMetrics.getFingerprint("select *\n  from test -- comment\n where id = ?"));
+        assertEquals("select  from test where  = ?",
+                SqlMetrics.getFingerprint("SELECT \"\" FROM Test WHERE [] = 1"));
+    }
+
+    @Test
+    public void execution() {
+        SqlMetrics metrics = new SqlMetrics();
+        metrics.addExecution("SELECT * FROM Test WHERE id = 1", 2000000, 1, 500000);
+        metrics.addExecution("SELECT * FROM Test WHERE id = 2", 4000000, 1, 1000000);
+        metrics.addCodec("SELECT * FROM Test WHERE id = 2", 300000);
+        metrics.addExecution("INSERT INTO Test (name) VALUES (?)", 1000000, 0, 0);
+
+        List<Map<String, Object>> statements = getStatements(metrics);
+        assertEquals(2, statements.size());
+        // sorted by total time
+        Map<String, Object> stats = statements.get(0);
+        assertEquals("select * from test where id = ?", stats.get("sql"));
+        assertEquals(2L, stats.get("count"));
+        assertEquals(6.0, (Double) stats.get("total"), 0.001);
+        assertEquals(3.0, (Double) stats.get("average"), 0.001);
+        assertEquals(4.0, (Double) stats.get("max"), 0.001);
+        assertEquals(4.0, (Double) stats.get("p95"), 0.001);
+        assertEquals(2L, stats.get("rows"));
+        assertEquals(1.5, (Double) stats.get("read"), 0.001);
+        assertEquals(0.3, (Double) stats.get("codec"), 0.001);
+        assertEquals("insert into test ( name ) values ( ? )", statements.get(1).get("sql"));
+
+        metrics.reset();
+        assertEquals(0, getStatements(metrics).size());
+    }
+
+    @Test
+    public void p95() {
+        SqlMetrics metrics = new SqlMetrics();
+        for (int i = 1; i <= 100; i++) {
+            metrics.addExecution("SELECT 1", i * 1000000L, 1, 0);
+        }
+        assertEquals(95.0, (Double) getStatements(metrics).get(0).get("p95"), 0.001);
+
+        // only the last samples are kept
+        for (int i = 0; i < SqlMetrics.SAMPLE_COUNT; i++) {
+            metrics.addExecution("SELECT 1", 1000000L, 1, 0);
+        }
+        Map<String, Object> stats = getStatements(metrics).get(0);
+        assertEquals(1.0, (Double) stats.get("p95"), 0.001);
+        assertEquals(100.0, (Double) stats.get("max"), 0.001);
+    }
+
+    @Test
+    public void queueWait() {
+        SqlMetrics metrics = new SqlMetrics();
+        metrics.addQueueWait(1000000);
+        metrics.addQueueWait(3000000);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> queueWait = (Map<String, Object>) metrics.toMap().get("queueWait");
+        assertEquals(2L, queueWait.get("count"));
+        assertEquals(2.0, (Double) queueWait.get("average"), 0.001);
+        assertEquals(3.0, (Double) queueWait.get("max"), 0.001);
+    }
+}
@@ -0,0 +1,128 @@
+package com.tekartik.sqflite;
+
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TableFileTest {
+
+    private static FileChannel open(File file, String mode) throws IOException {
+        return new RandomAccessFile(file, mode).getChannel();
+    }
+
+    @Test
+    public void writeRead() throws IOException {
+        File file = File.createTempFile("table", ".sqft");
+        try {
+            // small chunk to cross its boundaries
+            byte[] bigBlob = new byte[100];
+            for (int i = 0; i < bigBlob.length; i++) {
+                bigBlob[i] = (byte) i;
+            }
+            FileChannel channel = open(file, "rw");
+            TableFile.Writer writer = new TableFile.Writer(channel, 16);
+            writer.writeColumns(new String[]{"id", "name", "value", "data"});
+            for (int i = 0; i < 10; i++) {
+                writer.startRow();
+                writer.writeLong(i);
+                writer.writeText("item \u00e9 " + i);
+                writer.writeDouble(i + 0.5);
+                if (i % 2 == 0) {
+                    writer.writeNull();
+                } else {
+                    writer.writeBlob(bigBlob);
+                }
+            }
+            writer.finish();
+            channel.close();
+            assertEquals(file.length(), writer.getByteCount());
+
+            channel = open(file, "r");
+            TableFile.Reader reader = new TableFile.Reader(channel, 16);
+            assertArrayEquals(new String[]{"id", "name", "value", "data"}, reader.readColumns());
+            int rowCount = 0;
+            while (reader.nextRow()) {
+                assertEquals(TableFile.TYPE_INTEGER, reader.nextType());
+                assertEquals(rowCount, reader.readLong());
+                assertEquals(TableFile.TYPE_TEXT, reader.nextType());
+                assertEquals("item \u00e9 " + rowCount, reader.readText());
+                assertEquals(TableFile.TYPE_REAL, reader.nextType());
+                assertEquals(rowCount + 0.5, reader.readDouble(), 0);
+                if (rowCount % 2 == 0) {
+                    assertEquals(TableFile.TYPE_NULL, reader.nextType());
+                } else {
+                    assertEquals(TableFile.TYPE_BLOB, reader.nextType());
+                    assertArrayEquals(bigBlob, reader.readBlob());
+                }
+                rowCount++;
+            }
+            assertEquals(10, rowCount);
+            assertEquals(file.length(), reader.getByteCount());
+            channel.close();
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void truncated() throws IOException {
+        File file = File.createTempFile("table", ".sqft");
+        try {
+            FileChannel channel = open(file, "rw");
+            TableFile.Writer writer = new TableFile.Writer(channel, TableFile.DEFAULT_CHUNK_SIZE);
+            writer.writeColumns(new String[]{"id"});
+            writer.startRow();
+            writer.writeLong(1);
+            writer.finish();
+            // remove the end marker and half of the value
+            channel.truncate(file.length() - 5);
+            channel.close();
+
+            channel = open(file, "r");
+            TableFile.Reader reader = new TableFile.Reader(channel, TableFile.DEFAULT_CHUNK_SIZE);
+            reader.readColumns();
+            assertTrue(reader.nextRow());
+            assertEquals(TableFile.TYPE_INTEGER, reader.nextType());
+            try {
+                reader.readLong();
+                fail("should fail");
+            } catch (EOFException e) {
+                // expected
+            }
+            channel.close();
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void notATableFile() throws IOException {
+        File file = File.createTempFile("table", ".sqft");
+        try {
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+            randomAccessFile.write("SQLite format 3".getBytes());
+            randomAccessFile.close();
+
+            FileChannel channel = open(file, "r");
+            try {
+                new TableFile.Reader(channel, TableFile.DEFAULT_CHUNK_SIZE).readColumns();
+                fail("should fail");
+            } catch (IOException e) {
+                assertFalse(e instanceof EOFException);
+            }
+            channel.close();
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+}
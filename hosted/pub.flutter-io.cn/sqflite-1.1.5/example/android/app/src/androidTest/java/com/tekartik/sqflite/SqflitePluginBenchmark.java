@@ -0,0 +1,250 @@
+package com.tekartik.sqflite;
+
+import android.content.Context;
+import android.os.Build;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import io.flutter.plugin.common.MethodCall;
+import io.flutter.plugin.common.MethodChannel;
+
+import static com.tekartik.sqflite.Constant.MEMORY_DATABASE_PATH;
+
+/**
+ * Benchmark of the plugin method calls against an in memory database.
+ * <p>
+ * Each result is logged (tag SQFLBenchmark) and the whole report is written to
+ * sqflite_benchmark_{timestamp}.json in the app external files dir, see doc/perf.md
+ */
+@RunWith(AndroidJUnit4.class)
+public class SqflitePluginBenchmark {
+    static final String TAG = "SQFLBenchmark";
+
+    static final int ROW_COUNT = 1000;
+    static final int QUERY_COUNT = 20;
+    static final int SANITIZE_COUNT = 100000;
+
+    static JSONObject report;
+
+    SqflitePlugin plugin;
+    Integer databaseId;
+
+    // Call result
+    class Data {
+        CountDownLatch signal = new CountDownLatch(1);
+        Object result;
+        String error;
+    }
+
+    @BeforeClass
+    public static void initReport() throws JSONException {
+        report = new JSONObject();
+        report.put("date", new java.util.Date().toString());
+        report.put("model", Build.MANUFACTURER + " " + Build.MODEL);
+        report.put("android", Build.VERSION.RELEASE);
+        report.put("sdk", Build.VERSION.SDK_INT);
+    }
+
+    @AfterClass
+    public static void writeReport() throws IOException, JSONException {
+        Context context = ApplicationProvider.getApplicationContext();
+        File file = new File(context.getExternalFilesDir(null),
+                "sqflite_benchmark_" + System.currentTimeMillis() + ".json");
+        FileWriter writer = new FileWriter(file);
+        try {
+            writer.write(report.toString(2));
+        } finally {
+            writer.close();
+        }
+        Log.i(TAG, "report " + file);
+    }
+
+    // Invoke a method on the main thread (as done by the method channel)
+    // and wait for its result
+    private Object invoke(String method, Object arguments) throws InterruptedException {
+        final Data data = new Data();
+        final MethodCall call = new MethodCall(method, arguments);
+        final MethodChannel.Result result = new MethodChannel.Result() {
+            @Override
+            public void success(Object o) {
+                data.result = o;
+                data.signal.countDown();
+            }
+
+            @Override
+            public void error(String code, String message, Object details) {
+                data.error = code + " " + message;
+                data.signal.countDown();
+            }
+
+            @Override
+            public void notImplemented() {
+                data.error = "not implemented";
+                data.signal.countDown();
+            }
+        };
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                plugin.onMethodCall(call, result);
+            }
+        });
+        data.signal.await();
+        if (data.error != null) {
+            throw new IllegalStateException(method + ": " + data.error);
+        }
+        return data.result;
+    }
+
+    private Map<String, Object> sqlArguments(String sql, List<Object> arguments) {
+        Map<String, Object> param = new HashMap<>();
+        param.put("id", databaseId);
+        param.put("sql", sql);
+        param.put("arguments", arguments);
+        return param;
+    }
+
+    private void record(String name, int count, long startNanos) throws JSONException {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        JSONObject result = new JSONObject();
+        result.put("count", count);
+        result.put("totalMs", elapsedNanos / 1000000.0);
+        result.put("opsPerSecond", count * 1000000000.0 / elapsedNanos);
+        report.put(name, result);
+        Log.i(TAG, name + " " + result);
+    }
+
+    private void insertRows() throws InterruptedException {
+        Map<String, Object> param = new HashMap<>();
+        List<Map<String, Object>> operations = new ArrayList<>();
+        for (int i = 0; i < ROW_COUNT; i++) {
+            Map<String, Object> operation = sqlArguments("INSERT INTO Test (name, value) VALUES (?, ?)",
+                    Arrays.<Object>asList("item " + i, i));
+            operation.put("method", "insert");
+            operations.add(operation);
+        }
+        param.put("id", databaseId);
+        param.put("operations", operations);
+        param.put("noResult", true);
+        invoke("batch", param);
+    }
+
+    private void setQueryAsMapList(boolean queryAsMapList) throws InterruptedException {
+        Map<String, Object> param = new HashMap<>();
+        param.put("queryAsMapList", queryAsMapList);
+        invoke("options", param);
+    }
+
+    @Before
+    public void openDatabase() throws InterruptedException {
+        Context appContext = ApplicationProvider.getApplicationContext();
+        plugin = new SqflitePlugin(appContext);
+        Map<String, Object> param = new HashMap<>();
+        param.put("path", MEMORY_DATABASE_PATH);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> result = (Map<String, Object>) invoke("openDatabase", param);
+        databaseId = (Integer) result.get("id");
+        invoke("execute", sqlArguments("CREATE TABLE Test (id INTEGER PRIMARY KEY, name TEXT, value INTEGER)", null));
+    }
+
+    @After
+    public void closeDatabase() throws InterruptedException {
+        Map<String, Object> param = new HashMap<>();
+        param.put("id", databaseId);
+        invoke("closeDatabase", param);
+    }
+
+    @Test
+    public void insert() throws InterruptedException, JSONException {
+        long start = System.nanoTime();
+        for (int i = 0; i < ROW_COUNT; i++) {
+            invoke("insert", sqlArguments("INSERT INTO Test (name, value) VALUES (?, ?)",
+                    Arrays.<Object>asList("item " + i, i)));
+        }
+        record("insert", ROW_COUNT, start);
+    }
+
+    @Test
+    public void batch() throws InterruptedException, JSONException {
+        long start = System.nanoTime();
+        insertRows();
+        record("batch", ROW_COUNT, start);
+    }
+
+    @Test
+    public void batchInsert() throws InterruptedException, JSONException {
+        List<List<Object>> argumentsList = new ArrayList<>();
+        for (int i = 0; i < ROW_COUNT; i++) {
+            argumentsList.add(Arrays.<Object>asList("item " + i, i));
+        }
+        Map<String, Object> param = sqlArguments("INSERT INTO Test (name, value) VALUES (?, ?)", null);
+        param.put("argumentsList", argumentsList);
+        param.put("noResult", true);
+        long start = System.nanoTime();
+        invoke("batchInsert", param);
+        record("batchInsert", ROW_COUNT, start);
+    }
+
+    @Test
+    public void query() throws InterruptedException, JSONException {
+        insertRows();
+        Map<String, Object> param = sqlArguments("SELECT * FROM Test", null);
+
+        setQueryAsMapList(false);
+        long start = System.nanoTime();
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            invoke("query", param);
+        }
+        record("queryAsList", QUERY_COUNT * ROW_COUNT, start);
+
+        setQueryAsMapList(true);
+        try {
+            start = System.nanoTime();
+            for (int i = 0; i < QUERY_COUNT; i++) {
+                invoke("query", param);
+            }
+            record("queryAsMapList", QUERY_COUNT * ROW_COUNT, start);
+        } finally {
+            setQueryAsMapList(false);
+        }
+
+        param.put("columnar", true);
+        start = System.nanoTime();
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            invoke("query", param);
+        }
+        record("queryColumnar", QUERY_COUNT * ROW_COUNT, start);
+    }
+
+    @Test
+    public void sanitizeForQuery() throws JSONException {
+        SqlCommand command = new SqlCommand("SELECT * FROM Test WHERE id = ? AND name = ? AND value > ?",
+                Arrays.<Object>asList(1, "item", 2L));
+        long start = System.nanoTime();
+        for (int i = 0; i < SANITIZE_COUNT; i++) {
+            command.sanitizeForQuery();
+        }
+        record("sanitizeForQuery", SANITIZE_COUNT, start);
+    }
+}
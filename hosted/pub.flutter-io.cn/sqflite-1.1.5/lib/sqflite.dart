@@ -1,7 +1,10 @@
 import 'dart:async';
 
+import 'package:sqflite/src/batch.dart';
 import 'package:sqflite/src/compat.dart';
 import 'package:sqflite/src/constant.dart';
+import 'package:sqflite/src/database.dart';
+import 'package:sqflite/src/database_mixin.dart';
 import 'package:sqflite/src/factory_impl.dart' show databaseFactory;
 import 'package:sqflite/src/sqflite_impl.dart';
 import 'package:sqflite/src/utils.dart' as impl;
@@ -12,6 +15,7 @@ import 'sqlite_api.dart';
 export 'package:sqflite/sql.dart' show ConflictAlgorithm;
 export 'package:sqflite/src/compat.dart';
 export 'package:sqflite/src/factory_impl.dart' show databaseFactory;
+export 'package:sqflite/src/sqflite_impl.dart' show TableProgressFn;
 
 export 'sqlite_api.dart';
 
@@ -57,6 +61,136 @@ class Sqflite {
     await invokeMethod<dynamic>(method, arguments);
   }
 
+  // Testing only
+  // Native information for each opened database (statement cache...)
+  @deprecated
+  static Future<Map<dynamic, dynamic>> devGetDebugInfo() =>
+      invokeMethod<Map<dynamic, dynamic>>(methodDebug);
+
+  // Testing only
+  // Per sql statistics, null unless enabled with the androidMetrics option
+  @deprecated
+  static Future<Map<dynamic, dynamic>> devGetMetrics({bool reset = false}) =>
+      invokeMethod<Map<dynamic, dynamic>>(
+          methodGetMetrics, <String, dynamic>{paramReset: reset});
+
+  /// Android only: write all the rows of [table] to [file] natively without
+  /// going through the method channel, [onProgress] is called about every 64KB
+  ///
+  /// Returns the number of rows exported
+  static Future<int> exportTable(Database db, String table, String file,
+          {TableProgressFn onProgress}) =>
+      _invokeTableMethod(methodExportTable, db, table, file, onProgress);
+
+  /// Android only: insert the rows of a [file] written by [exportTable] into
+  /// [table] in a single transaction, [onProgress] is called about every 64KB
+  ///
+  /// Returns the number of rows imported
+  static Future<int> importTable(Database db, String table, String file,
+          {TableProgressFn onProgress}) =>
+      _invokeTableMethod(methodImportTable, db, table, file, onProgress);
+
+  /// Android only: commit a [batch] in a single native call and transaction
+  /// (or as part of the transaction it was created in)
+  ///
+  /// Arguments can reference the result (insert id or change count) of a
+  /// previous operation of the batch using [pipelineResult]:
+  ///
+  /// ```
+  /// batch.insert('Orders', <String, dynamic>{'total': 12});
+  /// batch.insert('Item', <String, dynamic>{'orderId': Sqflite.pipelineResult(0)});
+  /// ```
+  ///
+  /// Unlike [Batch.commit], the pipeline stops and is rolled back at the first
+  /// error
+  static Future<List<dynamic>> commitPipeline(Batch batch, {bool noResult}) {
+    if (batch is SqfliteTransactionBatch) {
+      return batch.transaction.database
+          .txnApplyPipeline(batch.transaction, batch, noResult: noResult);
+    }
+    final SqfliteDatabase database = (batch as SqfliteDatabaseBatch).database;
+    database.checkNotClosed();
+    return database.txnApplyPipeline(null, batch as SqfliteBatch,
+        noResult: noResult);
+  }
+
+  /// Android only: execute a raw SQL SELECT query on a database or
+  /// transaction, the result being sent column by column in typed arrays
+  static Future<List<Map<String, dynamic>>> rawQueryColumnar(
+      DatabaseExecutor executor, String sql,
+      [List<dynamic> arguments]) {
+    final SqfliteDatabaseExecutor sqfliteExecutor =
+        executor as SqfliteDatabaseExecutor;
+    sqfliteExecutor.db.checkNotClosed();
+    return sqfliteExecutor.db.txnRawQuery(sqfliteExecutor.txn, sql, arguments,
+        columnar: true);
+  }
+
+  /// Android only: execute a raw SQL SELECT query outside of any transaction
+  /// without waiting for the pending database calls, the query then runs
+  /// concurrently on a read connection (`androidReadConnectionCount` option)
+  ///
+  /// The query must not write, it runs as a regular [Database.rawQuery] when
+  /// there are no read connections
+  static Future<List<Map<String, dynamic>>> rawQueryReadOnly(
+      Database db, String sql,
+      [List<dynamic> arguments]) {
+    final SqfliteDatabase database = db as SqfliteDatabase;
+    database.checkNotClosed();
+    return database.txnRawQuery(database.txn, sql, arguments, readOnly: true);
+  }
+
+  /// Android only: insert [rows] into [table] in a single native call and
+  /// transaction, binding the same statement for each row. All the rows must
+  /// have the same columns
+  ///
+  /// Returns the inserted ids (null for a row ignored because of
+  /// [conflictAlgorithm]), null if [noResult] is true
+  ///
+  /// Other [Database] implementations insert the rows in a [Batch]
+  static Future<List<int>> batchInsert(
+      Database db, String table, List<Map<String, dynamic>> rows,
+      {ConflictAlgorithm conflictAlgorithm, bool noResult}) async {
+    if (db is SqfliteDatabase) {
+      return db.batchInsert(table, rows,
+          conflictAlgorithm: conflictAlgorithm, noResult: noResult);
+    }
+    final Batch batch = db.batch();
+    for (Map<String, dynamic> row in rows) {
+      batch.insert(table, row, conflictAlgorithm: conflictAlgorithm);
+    }
+    final List<dynamic> results = await batch.commit(noResult: noResult);
+    return noResult == true ? null : List<int>.from(results);
+  }
+
+  /// Android only: execute a raw SQL SELECT query returning its rows
+  /// [pageSize] (100 by default) at a time
+  static Future<QueryCursor> rawQueryCursor(
+      Database db, String sql, List<dynamic> arguments,
+      {int pageSize}) {
+    return (db as SqfliteDatabase)
+        .rawQueryCursor(sql, arguments, pageSize: pageSize);
+  }
+
+  /// Argument replaced natively by the result of the operation at [index]
+  /// in [commitPipeline]
+  static Map<String, dynamic> pipelineResult(int index) =>
+      <String, dynamic>{paramPipelineResult: index};
+
+  static Future<int> _invokeTableMethod(String method, Database db,
+      String table, String file, TableProgressFn onProgress) {
+    final SqfliteDatabaseMixin database = db as SqfliteDatabaseMixin;
+    return database.txnWriteSynchronized<int>(null, (_) async {
+      final Map<dynamic, dynamic> result = await database.factory
+          .wrapDatabaseException(() => invokeTableMethod<Map<dynamic, dynamic>>(
+              method,
+              <String, dynamic>{paramTable: table, paramFile: file}
+                ..addAll(database.baseDatabaseMethodArguments),
+              onProgress));
+      return result[paramRowCount] as int;
+    });
+  }
+
   /// helper to get the first int value in a query
   /// Useful for COUNT(*) queries
   static int firstIntValue(List<Map<String, dynamic>> list) =>
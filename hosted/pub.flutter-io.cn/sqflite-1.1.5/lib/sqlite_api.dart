@@ -61,6 +61,8 @@ abstract class DatabaseExecutor {
   ///            default sort order, which may be unordered.
   /// @param limit Limits the number of rows returned by the query,
   /// @param offset starting index,
+  /// @param columnar Android only, the result is sent column by column in
+  ///            typed arrays, faster to transfer for many rows.
 
   /// @return the items found
   Future<List<Map<String, dynamic>>> query(String table,
@@ -72,7 +74,8 @@ abstract class DatabaseExecutor {
       String having,
       String orderBy,
       int limit,
-      int offset});
+      int offset,
+      bool columnar});
 
   /// Execute a raw SQL SELECT query
   ///
@@ -140,6 +143,18 @@ abstract class DatabaseExecutor {
 /// to use during a transaction
 abstract class Transaction implements DatabaseExecutor {}
 
+///
+/// Android only: rows of a query read a page at a time, created by
+/// [Sqflite.rawQueryCursor]
+///
+abstract class QueryCursor {
+  /// The next page of rows, empty once all the rows were read
+  Future<List<Map<String, dynamic>>> next();
+
+  /// Release the cursor, only needed when not all the rows were read
+  Future<void> close();
+}
+
 ///
 /// Database to send sql commands, created during [openDatabase]
 ///
@@ -212,7 +227,8 @@ abstract class OpenDatabaseOptions {
       OnDatabaseVersionChangeFn onDowngrade,
       OnDatabaseOpenFn onOpen,
       bool readOnly = false,
-      bool singleInstance = true}) {
+      bool singleInstance = true,
+      Map<String, dynamic> androidOpenArguments}) {
     return impl.SqfliteOpenDatabaseOptions(
         version: version,
         onConfigure: onConfigure,
@@ -221,7 +237,8 @@ abstract class OpenDatabaseOptions {
         onDowngrade: onDowngrade,
         onOpen: onOpen,
         readOnly: readOnly,
-        singleInstance: singleInstance);
+        singleInstance: singleInstance,
+        androidOpenArguments: androidOpenArguments);
   }
 
   int version;
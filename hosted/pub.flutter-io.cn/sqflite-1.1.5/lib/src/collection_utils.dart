@@ -1,4 +1,6 @@
 import 'dart:collection';
+import 'dart:convert';
+import 'dart:typed_data';
 
 import 'package:sqflite/src/constant.dart';
 import 'package:sqflite/src/constant.dart' as constant;
@@ -59,6 +61,66 @@ dynamic fromRawOperationResult(Map<dynamic, dynamic> rawOperationResultMap) {
   return successResult;
 }
 
+/// Decode a query result encoded column by column (Android columnar query)
+///
+/// {
+/// 'columns': ['id', 'name'],
+/// 'rowCount': 2,
+/// 'columnData': [
+/// { 'type': 'integer', 'values': Int64List },
+/// { 'type': 'text', 'offsets': Int32List, 'data': Uint8List (utf8), 'nulls': Uint8List (bitmap) }
+/// ]
+/// }
+QueryResultSet columnarResultSetFromMap(Map<dynamic, dynamic> columnarMap) {
+  final List<dynamic> columns = columnarMap["columns"] as List<dynamic>;
+  final int rowCount = columnarMap["rowCount"] as int;
+  final List<dynamic> columnData = columnarMap["columnData"] as List<dynamic>;
+  final List<List<dynamic>> rows = List<List<dynamic>>.generate(
+      rowCount, (_) => List<dynamic>.filled(columns.length, null));
+  for (int column = 0; column < columns.length; column++) {
+    final List<dynamic> values = _columnarValues(
+        columnData[column] as Map<dynamic, dynamic>, rowCount);
+    for (int row = 0; row < rowCount; row++) {
+      rows[row][column] = values[row];
+    }
+  }
+  return QueryResultSet(columns, rows);
+}
+
+List<dynamic> _columnarValues(Map<dynamic, dynamic> column, int rowCount) {
+  final String type = column["type"] as String;
+  // bit (row % 8) of byte (row / 8) is set for a null value
+  final List<int> nulls = column["nulls"] as List<int>;
+  bool isNull(int row) =>
+      nulls != null && (nulls[row >> 3] & (1 << (row & 7))) != 0;
+  switch (type) {
+    case "integer":
+    case "real":
+      final List<dynamic> values = column["values"] as List<dynamic>;
+      return List<dynamic>.generate(
+          rowCount, (int row) => isNull(row) ? null : values[row]);
+    case "text":
+    case "blob":
+      final List<int> offsets = column["offsets"] as List<int>;
+      final Uint8List data = column["data"] as Uint8List;
+      return List<dynamic>.generate(rowCount, (int row) {
+        if (isNull(row)) {
+          return null;
+        }
+        if (type == "text") {
+          return const Utf8Decoder()
+              .convert(data, offsets[row], offsets[row + 1]);
+        }
+        return data.sublist(offsets[row], offsets[row + 1]);
+      });
+    case "mixed":
+      return column["values"] as List<dynamic>;
+    default:
+      // all null
+      return List<dynamic>.filled(rowCount, null);
+  }
+}
+
 List<Map<String, dynamic>> queryResultToList(dynamic queryResult) {
   // New 0.7.1 format
   // devPrint("queryResultToList: $queryResult");
@@ -66,6 +128,9 @@ List<Map<String, dynamic>> queryResultToList(dynamic queryResult) {
     return null;
   }
   if (queryResult is Map) {
+    if (queryResult["columnData"] != null) {
+      return columnarResultSetFromMap(queryResult);
+    }
     return queryResultSetFromMap(queryResult);
   }
   // dart1
@@ -10,6 +10,14 @@ class SqfliteOptions {
   // true =<0.7.0
   bool queryAsMapList;
   int androidThreadPriority;
+  // Each database opened afterwards gets its own thread
+  bool androidThreadPerDatabase;
+  // Compiled statements kept per database, 0 to disable
+  int androidStatementCacheSize;
+  // Record per sql statistics, read with getMetrics
+  bool androidMetrics;
+  // Read only connections for each database opened afterwards (WAL mode)
+  int androidReadConnectionCount;
 
   Map<String, dynamic> toMap() {
     final Map<String, dynamic> map = <String, dynamic>{};
@@ -19,6 +27,18 @@ class SqfliteOptions {
     if (androidThreadPriority != null) {
       map['androidThreadPriority'] = androidThreadPriority;
     }
+    if (androidThreadPerDatabase != null) {
+      map['androidThreadPerDatabase'] = androidThreadPerDatabase;
+    }
+    if (androidStatementCacheSize != null) {
+      map['androidStatementCacheSize'] = androidStatementCacheSize;
+    }
+    if (androidMetrics != null) {
+      map['androidMetrics'] = androidMetrics;
+    }
+    if (androidReadConnectionCount != null) {
+      map['androidReadConnectionCount'] = androidReadConnectionCount;
+    }
     return map;
   }
 
@@ -31,5 +51,22 @@ class SqfliteOptions {
     if (androidThreadPriority is int) {
       this.androidThreadPriority = androidThreadPriority;
     }
+    final dynamic androidThreadPerDatabase = map['androidThreadPerDatabase'];
+    if (androidThreadPerDatabase is bool) {
+      this.androidThreadPerDatabase = androidThreadPerDatabase;
+    }
+    final dynamic androidStatementCacheSize = map['androidStatementCacheSize'];
+    if (androidStatementCacheSize is int) {
+      this.androidStatementCacheSize = androidStatementCacheSize;
+    }
+    final dynamic androidMetrics = map['androidMetrics'];
+    if (androidMetrics is bool) {
+      this.androidMetrics = androidMetrics;
+    }
+    final dynamic androidReadConnectionCount =
+        map['androidReadConnectionCount'];
+    if (androidReadConnectionCount is int) {
+      this.androidReadConnectionCount = androidReadConnectionCount;
+    }
   }
 }
@@ -1,6 +1,10 @@
 // Method to use
 const String methodInsert = "insert";
 const String methodBatch = "batch";
+// Android only: one insert statement for a list of arguments
+const String methodBatchInsert = "batchInsert";
+// Android only: batch operations run natively in a single transaction
+const String methodPipeline = "pipeline";
 const String methodSetDebugModeOn = "debugMode";
 const String methodOptions = "options";
 const String methodCloseDatabase = "closeDatabase";
@@ -8,10 +12,21 @@ const String methodOpenDatabase = "openDatabase";
 const String methodExecute = "execute";
 const String methodUpdate = "update";
 const String methodQuery = "query";
+// Android only: next page of a query opened with paramCursorPageSize
+const String methodQueryCursorNext = "queryCursorNext";
 const String methodGetPlatformVersion = "getPlatformVersion";
 const String methodGetDatabasesPath = "getDatabasesPath";
 const String methodDatabaseExists = "databaseExists";
 const String methodDeleteDatabase = "deleteDatabase";
+// Native debug information
+const String methodDebug = "debug";
+// Per sql statistics (Android, androidMetrics option)
+const String methodGetMetrics = "getMetrics";
+// Android only: stream a table to/from a binary file
+const String methodExportTable = "exportTable";
+const String methodImportTable = "importTable";
+// Called by the native side during export/import
+const String methodTableProgress = "tableProgress";
 
 // For batch
 const String paramOperations = "operations";
@@ -22,6 +37,8 @@ const String paramContinueOnError = "continueOnError";
 
 // For each operation
 const String paramMethod = "method";
+// Android only: pipeline argument referencing the result of a previous operation
+const String paramPipelineResult = "pipelineResult";
 // For each operation reponse
 const String paramResult = "result";
 const String paramError = "error";
@@ -31,6 +48,8 @@ const String paramErrorData = "data";
 
 // Result for open if a single instance was recovered from the native world
 const String paramRecovered = "recovered";
+// Android read only connections when opening a database (int)
+const String paramReadConnectionCount = "readConnectionCount";
 // The database path (string)
 const String paramPath = "path";
 // The database version (int)
@@ -41,6 +60,16 @@ const String paramId = "id";
 const String paramReadOnly = "readOnly";
 // When opening the database (bool)
 const String paramSingleInstance = "singleInstance";
+// Android only, when opening the database, max cached query results (int)
+const String paramQueryCacheSize = "queryCacheSize";
+// Android only open arguments, applied with PRAGMA after opening
+const String paramPageSize = "pageSize";
+const String paramCacheSize = "cacheSize";
+const String paramMmapSize = "mmapSize";
+const String paramSynchronous = "synchronous";
+const String paramJournalMode = "journalMode";
+// Android only, query read before the open completes to fill the page cache
+const String paramWarmUpQuery = "warmUpQuery";
 
 const String paramTable = "table";
 const String paramValues = "values";
@@ -48,6 +77,28 @@ const String paramValues = "values";
 // for SQL query
 const String paramSql = "sql";
 const String paramSqlArguments = "arguments";
+// for batchInsert, list of arguments
+const String paramSqlArgumentsList = "argumentsList";
+
+// for paged query (int)
+const String paramCursorPageSize = "cursorPageSize";
+// returned when more rows are available (int)
+const String paramCursorId = "cursorId";
+// to close a cursor before reading all rows (bool)
+const String paramCancel = "cancel";
+// to clear the statistics once read in getMetrics (bool)
+const String paramReset = "reset";
+
+// for exportTable/importTable, with paramTable
+const String paramFile = "file";
+// to get tableProgress calls (int)
+const String paramProgressId = "progressId";
+// in exportTable/importTable result and tableProgress (int)
+const String paramRowCount = "rowCount";
+const String paramByteCount = "byteCount";
+
+// Android only: result encoded as typed arrays per column (bool)
+const String paramColumnar = "columnar";
 
 // Error
 const String sqliteErrorCode = "sqlite_error";
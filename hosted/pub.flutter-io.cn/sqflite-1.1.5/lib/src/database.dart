@@ -65,6 +65,10 @@ abstract class SqfliteDatabase extends SqfliteDatabaseExecutor
       SqfliteTransaction txn, SqfliteBatch batch,
       {bool noResult, bool continueOnError});
 
+  Future<List<dynamic>> txnApplyPipeline(
+      SqfliteTransaction txn, SqfliteBatch batch,
+      {bool noResult});
+
   Future<T> txnExecute<T>(SqfliteTransaction txn, String sql,
       [List<dynamic> arguments]);
 
@@ -72,10 +76,28 @@ abstract class SqfliteDatabase extends SqfliteDatabaseExecutor
       SqfliteTransaction txn, String sql, List<dynamic> arguments);
 
   Future<List<Map<String, dynamic>>> txnRawQuery(
-      SqfliteTransaction txn, String sql, List<dynamic> arguments);
+      SqfliteTransaction txn, String sql, List<dynamic> arguments,
+      {bool columnar, bool readOnly});
+
+  Future<QueryCursor> txnRawQueryCursor(
+      SqfliteTransaction txn, String sql, List<dynamic> arguments,
+      {int pageSize});
+
+  Future<Map<dynamic, dynamic>> txnQueryCursorNext(
+      SqfliteTransaction txn, int cursorId,
+      {bool cancel});
 
   Future<int> txnRawUpdate(
       SqfliteTransaction txn, String sql, List<dynamic> arguments);
 
+  // Sqflite.batchInsert, not part of Database to keep other implementations
+  // compiling
+  Future<List<int>> batchInsert(String table, List<Map<String, dynamic>> rows,
+      {ConflictAlgorithm conflictAlgorithm, bool noResult});
+
+  // Sqflite.rawQueryCursor
+  Future<QueryCursor> rawQueryCursor(String sql, List<dynamic> arguments,
+      {int pageSize});
+
   void checkNotClosed();
 }
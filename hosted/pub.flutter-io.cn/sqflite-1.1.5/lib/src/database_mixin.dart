@@ -7,6 +7,8 @@ import 'package:sqflite/src/constant.dart' hide lockWarningDuration;
 import 'package:sqflite/src/database.dart';
 import 'package:sqflite/src/exception.dart';
 import 'package:sqflite/src/factory.dart';
+import 'package:sqflite/src/open_options.dart';
+import 'package:sqflite/src/query_cursor.dart';
 import 'package:sqflite/src/sql_builder.dart';
 import 'package:sqflite/src/transaction.dart';
 import 'package:sqflite/utils/utils.dart';
@@ -77,6 +79,8 @@ mixin SqfliteDatabaseExecutorMixin implements SqfliteDatabaseExecutor {
   ///            default sort order, which may be unordered.
   /// @param limit Limits the number of rows returned by the query,
   /// @param offset starting index,
+  /// @param columnar Android only, the result is sent column by column in
+  ///            typed arrays, faster to transfer for many rows.
   ///
   /// @return the items found
   ///
@@ -90,7 +94,8 @@ mixin SqfliteDatabaseExecutorMixin implements SqfliteDatabaseExecutor {
       String having,
       String orderBy,
       int limit,
-      int offset}) {
+      int offset,
+      bool columnar}) {
     final SqlBuilder builder = SqlBuilder.query(table,
         distinct: distinct,
         columns: columns,
@@ -101,6 +106,11 @@ mixin SqfliteDatabaseExecutorMixin implements SqfliteDatabaseExecutor {
         limit: limit,
         offset: offset,
         whereArgs: whereArgs);
+    if (columnar == true) {
+      db.checkNotClosed();
+      return db.txnRawQuery(txn, builder.sql, builder.arguments,
+          columnar: columnar);
+    }
     return rawQuery(builder.sql, builder.arguments);
   }
 
@@ -194,6 +204,10 @@ mixin SqfliteDatabaseMixin implements SqfliteDatabase {
   // Set when parsing BEGIN and COMMIT/ROLLBACK
   bool inTransaction = false;
 
+  // Android read only connections (WAL mode), queries outside a transaction
+  // can then run concurrently
+  int readConnectionCount = 0;
+
   @override
   SqfliteDatabase get db => this;
 
@@ -344,15 +358,72 @@ mixin SqfliteDatabaseMixin implements SqfliteDatabase {
     });
   }
 
+  /// Android: when [columnar] is true the result is encoded column by column,
+  /// when [readOnly] is true and there are read connections, the query does
+  /// not wait for the lock (see [Sqflite.rawQueryReadOnly])
   @override
   Future<List<Map<String, dynamic>>> txnRawQuery(
-      SqfliteTransaction txn, String sql, List<dynamic> arguments) {
+      SqfliteTransaction txn, String sql, List<dynamic> arguments,
+      {bool columnar, bool readOnly}) {
+    Future<List<Map<String, dynamic>>> action(Transaction _) async {
+      final Map<String, dynamic> methodArguments = <String, dynamic>{
+        paramSql: sql,
+        paramSqlArguments: arguments
+      }..addAll(baseDatabaseMethodArguments);
+      if (columnar == true) {
+        methodArguments[paramColumnar] = columnar;
+      }
+      if (readOnly == true) {
+        methodArguments[paramReadOnly] = readOnly;
+      }
+      final dynamic result =
+          await safeInvokeMethod<dynamic>(methodQuery, methodArguments);
+      return queryResultToList(result);
+    }
+
+    // Explicit read only query, no need to wait for the lock: the native side
+    // runs it on a read connection only when there are no pending writes
+    if (readOnly == true &&
+        txn == null &&
+        !inTransaction &&
+        readConnectionCount > 0) {
+      return action(txn);
+    }
+    return txnSynchronized(txn, action);
+  }
+
+  /// Android only: the query returns the first page of rows and a cursor id
+  /// to read the next ones
+  @override
+  Future<QueryCursor> txnRawQueryCursor(
+      SqfliteTransaction txn, String sql, List<dynamic> arguments,
+      {int pageSize}) {
     return txnSynchronized(txn, (_) async {
-      final dynamic result = await safeInvokeMethod<dynamic>(
+      final Map<dynamic, dynamic> result = await safeInvokeMethod(
           methodQuery,
-          <String, dynamic>{paramSql: sql, paramSqlArguments: arguments}
-            ..addAll(baseDatabaseMethodArguments));
-      return queryResultToList(result);
+          <String, dynamic>{
+            paramSql: sql,
+            paramSqlArguments: arguments,
+            paramCursorPageSize: pageSize
+          }..addAll(baseDatabaseMethodArguments));
+      return SqfliteQueryCursor(this, txn, result);
+    });
+  }
+
+  /// Next page of a cursor or, when [cancel] is true, close it
+  @override
+  Future<Map<dynamic, dynamic>> txnQueryCursorNext(
+      SqfliteTransaction txn, int cursorId,
+      {bool cancel}) {
+    return txnSynchronized(txn, (_) {
+      final Map<String, dynamic> arguments = <String, dynamic>{
+        paramCursorId: cursorId
+      }..addAll(baseDatabaseMethodArguments);
+      if (cancel == true) {
+        arguments[paramCancel] = cancel;
+      }
+      return safeInvokeMethod<Map<dynamic, dynamic>>(
+          methodQueryCursorNext, arguments);
     });
   }
 
@@ -395,6 +466,66 @@ mixin SqfliteDatabaseMixin implements SqfliteDatabase {
     });
   }
 
+  /// Android only: the whole batch is sent in a single call and run natively
+  /// in one transaction (or in [txn]), stopping at the first error
+  Future<List<dynamic>> txnApplyPipeline(
+      SqfliteTransaction txn, SqfliteBatch batch,
+      {bool noResult}) {
+    return txnWriteSynchronized(txn, (_) async {
+      final Map<String, dynamic> arguments = <String, dynamic>{
+        paramOperations: batch.operations
+      }..addAll(baseDatabaseMethodArguments);
+      if (noResult == true) {
+        arguments[paramNoResult] = noResult;
+      }
+      final List<dynamic> results =
+          await safeInvokeMethod(methodPipeline, arguments);
+      if (results == null) {
+        return null;
+      }
+      return BatchResults.from(results);
+    });
+  }
+
+  @override
+  Future<List<int>> batchInsert(String table, List<Map<String, dynamic>> rows,
+      {ConflictAlgorithm conflictAlgorithm, bool noResult}) async {
+    checkNotClosed();
+    if (rows.isEmpty) {
+      return noResult == true ? null : <int>[];
+    }
+    final List<String> columns = rows.first.keys.toList();
+    final SqlBuilder builder = SqlBuilder.batchInsert(table, columns,
+        conflictAlgorithm: conflictAlgorithm);
+    final List<List<dynamic>> argumentsList =
+        rows.map((Map<String, dynamic> row) {
+      if (row.length != columns.length || !columns.every(row.containsKey)) {
+        throw ArgumentError("all rows must have the columns $columns");
+      }
+      return columns.map((String column) => row[column]).toList();
+    }).toList();
+
+    return txnWriteSynchronized(txn, (_) async {
+      final Map<String, dynamic> arguments = <String, dynamic>{
+        paramSql: builder.sql,
+        paramSqlArgumentsList: argumentsList
+      }..addAll(baseDatabaseMethodArguments);
+      if (noResult == true) {
+        arguments[paramNoResult] = noResult;
+      }
+      final List<dynamic> ids =
+          await safeInvokeMethod(methodBatchInsert, arguments);
+      return ids == null ? null : List<int>.from(ids);
+    });
+  }
+
+  @override
+  Future<QueryCursor> rawQueryCursor(String sql, List<dynamic> arguments,
+      {int pageSize}) {
+    checkNotClosed();
+    return txnRawQueryCursor(txn, sql, arguments, pageSize: pageSize ?? 100);
+  }
+
   @override
   Future<SqfliteTransaction> beginTransaction({bool exclusive}) async {
     final SqfliteTransaction txn = SqfliteTransaction(this);
@@ -493,6 +624,11 @@ mixin SqfliteDatabaseMixin implements SqfliteDatabase {
     }
     // Single instance?
     params[paramSingleInstance] = options?.singleInstance != false;
+    final OpenDatabaseOptions openOptions = options;
+    if (openOptions is SqfliteOpenDatabaseOptions &&
+        openOptions.androidOpenArguments != null) {
+      params.addAll(openOptions.androidOpenArguments);
+    }
 
     // Version up to 1.1.5 returns an int
     // Now it returns some database information
@@ -507,6 +643,8 @@ mixin SqfliteDatabaseMixin implements SqfliteDatabase {
       final int id = openResult[paramId] as int;
       // Recover means we found an instance in the native world
       final bool recovered = openResult[paramRecovered] == true;
+      readConnectionCount =
+          (openResult[paramReadConnectionCount] as int) ?? 0;
       // in this case, we are going to rollback any changes in case a transaction
       // was in progress. This catches hot-restart scenario
       if (recovered) {
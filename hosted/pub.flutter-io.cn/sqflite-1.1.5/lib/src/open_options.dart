@@ -14,6 +14,7 @@ class SqfliteOpenDatabaseOptions implements OpenDatabaseOptions {
     this.onOpen,
     this.readOnly = false,
     this.singleInstance = true,
+    this.androidOpenArguments,
   }) {
     readOnly ??= false;
     singleInstance ??= true;
@@ -35,6 +36,12 @@ class SqfliteOpenDatabaseOptions implements OpenDatabaseOptions {
   @override
   bool singleInstance;
 
+  /// Android only, extra arguments of the native open call: pageSize,
+  /// cacheSize, mmapSize, synchronous, journalMode (applied with PRAGMA right
+  /// after opening), warmUpQuery (read before the open completes),
+  /// queryCacheSize
+  Map<String, dynamic> androidOpenArguments;
+
   @override
   String toString() {
     final Map<String, dynamic> map = <String, dynamic>{};
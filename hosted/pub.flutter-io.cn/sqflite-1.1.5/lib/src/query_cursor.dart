@@ -0,0 +1,47 @@
+import 'dart:async';
+
+import 'package:sqflite/sqlite_api.dart';
+import 'package:sqflite/src/collection_utils.dart';
+import 'package:sqflite/src/constant.dart';
+import 'package:sqflite/src/database.dart';
+import 'package:sqflite/src/transaction.dart';
+
+class SqfliteQueryCursor implements QueryCursor {
+  SqfliteQueryCursor(this.database, this.txn, Map<dynamic, dynamic> firstPage)
+      : _firstPage = firstPage,
+        _cursorId = firstPage[paramCursorId] as int;
+
+  final SqfliteDatabase database;
+  final SqfliteTransaction txn;
+
+  // Returned by the query, null once returned by next
+  Map<dynamic, dynamic> _firstPage;
+
+  // Native cursor, null once all the pages were read or closed
+  int _cursorId;
+
+  @override
+  Future<List<Map<String, dynamic>>> next() async {
+    Map<dynamic, dynamic> page = _firstPage;
+    if (page != null) {
+      _firstPage = null;
+    } else {
+      if (_cursorId == null) {
+        return <Map<String, dynamic>>[];
+      }
+      page = await database.txnQueryCursorNext(txn, _cursorId);
+      _cursorId = page[paramCursorId] as int;
+    }
+    return queryResultToList(page);
+  }
+
+  @override
+  Future<void> close() async {
+    _firstPage = null;
+    final int cursorId = _cursorId;
+    if (cursorId != null) {
+      _cursorId = null;
+      await database.txnQueryCursorNext(txn, cursorId, cancel: true);
+    }
+  }
+}
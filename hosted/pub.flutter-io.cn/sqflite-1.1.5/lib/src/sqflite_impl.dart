@@ -1,6 +1,8 @@
 import 'dart:async';
 import 'dart:core';
 
+import 'package:sqflite/src/constant.dart';
+
 import 'services_impl.dart';
 
 export 'package:sqflite/src/collection_utils.dart';
@@ -18,3 +20,44 @@ Future<T> invokeMethod<T>(String method, [dynamic arguments]) async {
   final T result = await channel.invokeMethod(method, arguments) as T;
   return result;
 }
+
+/// Called with the rows and bytes done during a table export/import
+typedef void TableProgressFn(int rowCount, int byteCount);
+
+final Map<int, TableProgressFn> _tableProgressListeners =
+    <int, TableProgressFn>{};
+int _lastTableProgressId = 0;
+
+// Calls from the native side
+Future<dynamic> _handleNativeCall(MethodCall call) async {
+  if (call.method == methodTableProgress) {
+    final Map<dynamic, dynamic> arguments =
+        call.arguments as Map<dynamic, dynamic>;
+    final TableProgressFn listener =
+        _tableProgressListeners[arguments[paramProgressId] as int];
+    if (listener != null) {
+      listener(
+          arguments[paramRowCount] as int, arguments[paramByteCount] as int);
+    }
+  }
+  return null;
+}
+
+// exportTable/importTable reporting their progress to onProgress if any
+Future<T> invokeTableMethod<T>(String method, Map<String, dynamic> arguments,
+    TableProgressFn onProgress) async {
+  if (onProgress == null) {
+    return await invokeMethod<T>(method, arguments);
+  }
+  if (_lastTableProgressId == 0) {
+    channel.setMethodCallHandler(_handleNativeCall);
+  }
+  final int progressId = ++_lastTableProgressId;
+  _tableProgressListeners[progressId] = onProgress;
+  try {
+    return await invokeMethod<T>(
+        method, arguments..[paramProgressId] = progressId);
+  } finally {
+    _tableProgressListeners.remove(progressId);
+  }
+}
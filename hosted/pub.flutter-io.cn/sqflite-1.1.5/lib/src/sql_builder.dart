@@ -189,6 +189,33 @@ class SqlBuilder {
     arguments = bindArgs;
   }
 
+  /// Insert statement binding a value for each of the [columns], to run
+  /// with a list of arguments per row.
+  ///
+  /// @param table the table to insert into
+  /// @param columns the columns set, in the order of the arguments
+  /// @param conflictAlgorithm for insert conflict resolver
+  SqlBuilder.batchInsert(String table, List<String> columns,
+      {ConflictAlgorithm conflictAlgorithm}) {
+    if (columns == null || columns.isEmpty) {
+      throw ArgumentError("Empty columns");
+    }
+    final StringBuffer insert = StringBuffer();
+    insert.write("INSERT");
+    if (conflictAlgorithm != null) {
+      insert.write(_conflictValues[conflictAlgorithm.index]);
+    }
+    insert.write(" INTO ");
+    insert.write(_escapeName(table));
+    insert.write(' (');
+    insert.write(columns.map(_escapeName).join(', '));
+    insert.write(') VALUES (');
+    insert.write(List<String>.filled(columns.length, '?').join(', '));
+    insert.write(')');
+
+    sql = insert.toString();
+  }
+
   /// Convenience method for updating rows in the database.
   ///
   /// @param table the table to update in
@@ -1,3 +1,6 @@
+import 'dart:convert';
+import 'dart:typed_data';
+
 import 'package:flutter/services.dart';
 import 'package:flutter_test/flutter_test.dart';
 import 'package:sqflite/src/exception.dart';
@@ -105,6 +108,59 @@ void main() {
       expect(queryResultToList(<String, dynamic>{}), <dynamic>[]);
     });
 
+    test('columnar', () {
+      final Map<dynamic, dynamic> columnar = <dynamic, dynamic>{
+        "columns": <dynamic>["id", "name", "value", "data", "other", "none"],
+        "rowCount": 2,
+        "columnData": <dynamic>[
+          <dynamic, dynamic>{
+            "type": "integer",
+            "values": Int64List.fromList(<int>[1, 2])
+          },
+          <dynamic, dynamic>{
+            "type": "text",
+            "offsets": Int32List.fromList(<int>[0, 6, 6]),
+            "data": Uint8List.fromList(utf8.encode("item 1")),
+            // second row null
+            "nulls": Uint8List.fromList(<int>[2])
+          },
+          <dynamic, dynamic>{
+            "type": "real",
+            "values": Float64List.fromList(<double>[0, 1.5]),
+            "nulls": Uint8List.fromList(<int>[1])
+          },
+          <dynamic, dynamic>{
+            "type": "blob",
+            "offsets": Int32List.fromList(<int>[0, 1, 3]),
+            "data": Uint8List.fromList(<int>[1, 2, 3])
+          },
+          <dynamic, dynamic>{
+            "type": "mixed",
+            "values": <dynamic>[1, "text"]
+          },
+          <dynamic, dynamic>{"type": "null"}
+        ]
+      };
+      expect(queryResultToList(columnar), <Map<String, dynamic>>[
+        <String, dynamic>{
+          'id': 1,
+          'name': 'item 1',
+          'value': null,
+          'data': <int>[1],
+          'other': 1,
+          'none': null
+        },
+        <String, dynamic>{
+          'id': 2,
+          'name': null,
+          'value': 1.5,
+          'data': <int>[2, 3],
+          'other': 'text',
+          'none': null
+        }
+      ]);
+    });
+
     test('lockWarning', () {});
   });
 }
@@ -1,3 +1,5 @@
+import 'dart:typed_data';
+
 import 'package:flutter/services.dart';
 import 'package:flutter_test/flutter_test.dart';
 import 'package:sqflite/sqflite.dart';
@@ -7,15 +9,17 @@ void main() {
     const MethodChannel channel = MethodChannel('com.tekartik.sqflite');
 
     final List<MethodCall> log = <MethodCall>[];
-    String response;
+    // response per method
+    final Map<String, dynamic> responses = <String, dynamic>{};
 
     channel.setMockMethodCallHandler((MethodCall methodCall) async {
       log.add(methodCall);
-      return response;
+      return responses[methodCall.method];
     });
 
     tearDown(() {
       log.clear();
+      responses.clear();
     });
 
     test("setDebugModeOn", () async {
@@ -110,6 +114,150 @@ void main() {
       } on FormatException catch (_) {}
     });
 
+    test('batchInsert', () async {
+      responses['openDatabase'] = 1;
+      responses['batchInsert'] = <dynamic>[1, null];
+      final Database db = await openDatabase(inMemoryDatabasePath);
+      final List<int> ids =
+          await Sqflite.batchInsert(db, 'Test', <Map<String, dynamic>>[
+        <String, dynamic>{'name': 'item 1', 'value': 1},
+        <String, dynamic>{'value': null, 'name': 'item 2'}
+      ]);
+      expect(ids, <int>[1, null]);
+
+      try {
+        await Sqflite.batchInsert(db, 'Test', <Map<String, dynamic>>[
+          <String, dynamic>{'name': 'item 1', 'value': 1},
+          <String, dynamic>{'name': 'item 2'}
+        ]);
+        fail('should fail, missing column');
+      } on ArgumentError catch (_) {}
+      await db.close();
+
+      expect(log.map((MethodCall call) => call.method),
+          <String>['openDatabase', 'batchInsert', 'closeDatabase']);
+      expect(log[1].arguments, <String, dynamic>{
+        'sql': 'INSERT INTO Test (name, value) VALUES (?, ?)',
+        'argumentsList': <dynamic>[
+          <dynamic>['item 1', 1],
+          <dynamic>['item 2', null]
+        ],
+        'id': 1
+      });
+    });
+
+    test('rawQueryCursor', () async {
+      responses['openDatabase'] = 1;
+      responses['query'] = <String, dynamic>{
+        'columns': <dynamic>['value'],
+        'rows': <dynamic>[
+          <dynamic>[1]
+        ],
+        'cursorId': 2
+      };
+      responses['queryCursorNext'] = <String, dynamic>{
+        'columns': <dynamic>['value'],
+        'rows': <dynamic>[
+          <dynamic>[2]
+        ]
+      };
+      final Database db = await openDatabase(inMemoryDatabasePath);
+      QueryCursor cursor = await Sqflite.rawQueryCursor(
+          db, 'SELECT value FROM Test', null,
+          pageSize: 1);
+      expect(await cursor.next(), <Map<String, dynamic>>[
+        <String, dynamic>{'value': 1}
+      ]);
+      expect(await cursor.next(), <Map<String, dynamic>>[
+        <String, dynamic>{'value': 2}
+      ]);
+      expect(await cursor.next(), isEmpty);
+      // No more native cursor
+      await cursor.close();
+
+      cursor = await Sqflite.rawQueryCursor(db, 'SELECT value FROM Test', null,
+          pageSize: 1);
+      await cursor.close();
+      await db.close();
+
+      expect(log.map((MethodCall call) => call.method), <String>[
+        'openDatabase',
+        'query',
+        'queryCursorNext',
+        'query',
+        'queryCursorNext',
+        'closeDatabase'
+      ]);
+      expect(log[1].arguments, <String, dynamic>{
+        'sql': 'SELECT value FROM Test',
+        'arguments': null,
+        'cursorPageSize': 1,
+        'id': 1
+      });
+      expect(log[2].arguments, <String, dynamic>{'cursorId': 2, 'id': 1});
+      expect(log[4].arguments,
+          <String, dynamic>{'cursorId': 2, 'id': 1, 'cancel': true});
+    });
+
+    test('query columnar', () async {
+      responses['openDatabase'] = 1;
+      responses['query'] = <String, dynamic>{
+        'columns': <dynamic>['value'],
+        'rowCount': 1,
+        'columnData': <dynamic>[
+          <String, dynamic>{
+            'type': 'integer',
+            'values': Int64List.fromList(<int>[1])
+          }
+        ]
+      };
+      final Database db = await openDatabase(inMemoryDatabasePath);
+      expect(await db.query('Test', columnar: true), <Map<String, dynamic>>[
+        <String, dynamic>{'value': 1}
+      ]);
+      expect(await Sqflite.rawQueryColumnar(db, 'SELECT value FROM Test'),
+          <Map<String, dynamic>>[
+            <String, dynamic>{'value': 1}
+          ]);
+      await db.close();
+
+      expect(log[1].arguments, <String, dynamic>{
+        'sql': 'SELECT * FROM Test',
+        'arguments': null,
+        'columnar': true,
+        'id': 1
+      });
+      expect(log[2].arguments, <String, dynamic>{
+        'sql': 'SELECT value FROM Test',
+        'arguments': null,
+        'columnar': true,
+        'id': 1
+      });
+    });
+
+    test('rawQueryReadOnly', () async {
+      responses['openDatabase'] = <String, dynamic>{
+        'id': 1,
+        'readConnectionCount': 2
+      };
+      final Database db = await openDatabase(inMemoryDatabasePath);
+      await db.rawQuery('SELECT 1');
+      await Sqflite.rawQueryReadOnly(db, 'SELECT 2');
+      await db.close();
+
+      expect(log[1].arguments, <String, dynamic>{
+        'sql': 'SELECT 1',
+        'arguments': null,
+        'id': 1
+      });
+      expect(log[2].arguments, <String, dynamic>{
+        'sql': 'SELECT 2',
+        'arguments': null,
+        'readOnly': true,
+        'id': 1
+      });
+    });
+
     test('open null', () async {
       AssertionError exception;
       try {
@@ -57,6 +57,19 @@ void main() {
       expect(builder.arguments, <int>[1]);
     });
 
+    test("batchInsert", () {
+      try {
+        SqlBuilder.batchInsert("test", <String>[]);
+        fail('should fail, no columns');
+      } on ArgumentError catch (_) {}
+
+      final SqlBuilder builder =
+          SqlBuilder.batchInsert("test", <String>["value", "other_value"]);
+      expect(builder.sql,
+          "INSERT INTO test (value, other_value) VALUES (?, ?)");
+      expect(builder.arguments, isNull);
+    });
+
     test("update", () {
       try {
         SqlBuilder.update("test", null);